@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import com.digitalpetri.netty.fsm.DispatchMode;
+import io.netty.channel.Channel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A {@link ChannelFsm#connect()} followed by a {@link ChannelFsm#disconnect()}, each awaited.
+ *
+ * <p>Every thread drives its own {@link ChannelFsm}; the contended variants measure how the FSMs
+ * interfere with each other through the shared executor and scheduler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectDisconnectBenchmark {
+
+  @Param({"EMBEDDED", "LOCAL"})
+  public Transport transport;
+
+  @Param({"PREDICATE", "INDEXED"})
+  public DispatchMode dispatchMode;
+
+  private ChannelFsm fsm;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(transport.newChannelActions())
+        .setDispatchMode(dispatchMode)
+        .setMaxIdleSeconds(0)
+        .build();
+
+    fsm = new ChannelFsmFactory(config).newChannelFsm();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Channel connectDisconnect() throws Exception {
+    return roundTrip();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Channel connectDisconnect_8threads() throws Exception {
+    return roundTrip();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Channel connectDisconnect_32threads() throws Exception {
+    return roundTrip();
+  }
+
+  private Channel roundTrip() throws Exception {
+    Channel channel = fsm.connect().get();
+    fsm.disconnect().get();
+    return channel;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import io.netty.channel.Channel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ChannelFsm#getChannel()} and {@link ChannelFsm#getChannelNow()} while the FSM is
+ * Connected, i.e. the per-request hot path.
+ *
+ * <p>All threads share a single {@link ChannelFsm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetChannelBenchmark {
+
+  @Param({"EMBEDDED", "LOCAL"})
+  public Transport transport;
+
+  private ChannelFsm fsm;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(transport.newChannelActions())
+        .setMaxIdleSeconds(0)
+        .build();
+
+    fsm = new ChannelFsmFactory(config).newChannelFsm();
+    fsm.connect().get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fsm.disconnect().get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public CompletableFuture<Channel> getChannel() {
+    return fsm.getChannel();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public CompletableFuture<Channel> getChannel_8threads() {
+    return fsm.getChannel();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public CompletableFuture<Channel> getChannel_32threads() {
+    return fsm.getChannel();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Channel getChannelNow() {
+    return fsm.getChannelNow();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Channel getChannelNow_8threads() {
+    return fsm.getChannelNow();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Channel getChannelNow_32threads() {
+    return fsm.getChannelNow();
+  }
+
+}
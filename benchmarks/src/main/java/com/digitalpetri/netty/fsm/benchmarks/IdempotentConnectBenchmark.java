@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import io.netty.channel.Channel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ChannelFsm#connect()} while already Connected and {@link ChannelFsm#disconnect()}
+ * while already NotConnected, i.e. defensive calls that don't change the state.
+ *
+ * <p>All threads share one Connected and one NotConnected {@link ChannelFsm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotentConnectBenchmark {
+
+  private ChannelFsm connected;
+  private ChannelFsm notConnected;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(Transport.EMBEDDED.newChannelActions())
+        .build();
+
+    ChannelFsmFactory factory = new ChannelFsmFactory(config);
+
+    connected = factory.newChannelFsm();
+    connected.connect().get();
+
+    notConnected = factory.newChannelFsm();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connected.disconnect().get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public CompletableFuture<Channel> connectWhileConnected() throws Exception {
+    return connected.connect();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public CompletableFuture<Channel> connectWhileConnected_8threads() throws Exception {
+    return connected.connect();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Void disconnectWhileNotConnected() throws Exception {
+    return notConnected.disconnect().get();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Void disconnectWhileNotConnected_8threads() throws Exception {
+    return notConnected.disconnect().get();
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.fsm.FsmContext;
+import com.digitalpetri.netty.fsm.ChannelActions;
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import com.digitalpetri.netty.fsm.Event;
+import io.netty.channel.Channel;
+import io.netty.handler.timeout.IdleStateEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One idle/keep-alive cycle: a reader idle {@link IdleStateEvent} on the connected
+ * {@link Channel}, the resulting ChannelIdle event, and the keep-alive it triggers.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation per cycle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdleCycleBenchmark {
+
+  private static final CompletableFuture<Void> KEEP_ALIVE_SUCCESS =
+      CompletableFuture.completedFuture(null);
+
+  @Param({"EMBEDDED", "LOCAL"})
+  public Transport transport;
+
+  private final AtomicLong keepAlives = new AtomicLong(0L);
+
+  private ChannelFsm fsm;
+  private Channel channel;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ChannelActions delegate = transport.newChannelActions();
+
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(new ChannelActions() {
+          @Override
+          public CompletableFuture<Channel> connect(
+              FsmContext<com.digitalpetri.netty.fsm.State, Event> ctx
+          ) {
+
+            return delegate.connect(ctx);
+          }
+
+          @Override
+          public CompletableFuture<Void> disconnect(
+              FsmContext<com.digitalpetri.netty.fsm.State, Event> ctx,
+              Channel channel
+          ) {
+
+            return delegate.disconnect(ctx, channel);
+          }
+
+          @Override
+          public CompletableFuture<Void> keepAlive(
+              FsmContext<com.digitalpetri.netty.fsm.State, Event> ctx,
+              Channel channel
+          ) {
+
+            keepAlives.incrementAndGet();
+            return KEEP_ALIVE_SUCCESS;
+          }
+        })
+        .setMaxIdleSeconds(0)
+        .build();
+
+    fsm = new ChannelFsmFactory(config).newChannelFsm();
+
+    channel = fsm.connect().get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fsm.disconnect().get();
+  }
+
+  @Benchmark
+  public long idle() {
+    long expected = keepAlives.get() + 1;
+
+    channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+
+    long count;
+    while ((count = keepAlives.get()) < expected) {
+      Thread.onSpinWait();
+    }
+
+    return count;
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of creating {@link ChannelFsm} instances from a {@link ChannelFsmFactory}: the time
+ * and allocation per instance, and the heap each instance retains once created.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class NewChannelFsmBenchmark {
+
+  private static final int FOOTPRINT_FSM_COUNT = 50_000;
+
+  private ChannelFsmFactory factory;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(Transport.EMBEDDED.newChannelActions())
+        .build();
+
+    factory = new ChannelFsmFactory(config);
+  }
+
+  /**
+   * Time and, with {@code -prof gc}, bytes allocated to create one {@link ChannelFsm}.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public ChannelFsm newChannelFsm() {
+    return factory.newChannelFsm();
+  }
+
+  /**
+   * Create {@value #FOOTPRINT_FSM_COUNT} {@link ChannelFsm}s and report the heap retained by
+   * each as the {@code retainedBytesPerFsm} secondary result.
+   *
+   * <p>Auxiliary event counters are summed across iterations, so there is a single measurement
+   * iteration.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 1)
+  public ChannelFsm[] footprint(Footprint footprint) {
+    long before = usedHeapAfterGc();
+
+    ChannelFsm[] fsms = new ChannelFsm[FOOTPRINT_FSM_COUNT];
+    for (int i = 0; i < fsms.length; i++) {
+      fsms[i] = factory.newChannelFsm();
+    }
+
+    long after = usedHeapAfterGc();
+
+    footprint.retainedBytesPerFsm = (after - before) / FOOTPRINT_FSM_COUNT;
+
+    return fsms;
+  }
+
+  private static long usedHeapAfterGc() {
+    MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+
+    public long retainedBytesPerFsm;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      retainedBytesPerFsm = 0;
+    }
+  }
+
+}
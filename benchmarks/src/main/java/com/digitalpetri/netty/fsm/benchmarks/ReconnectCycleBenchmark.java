@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import com.digitalpetri.netty.fsm.DispatchMode;
+import io.netty.channel.Channel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full Connected -> ReconnectWait -> Reconnecting -> Connected cycle, triggered by closing the
+ * connected {@link Channel} and completed when the FSM is Connected again.
+ *
+ * <p>The reconnect delay is skipped so the cycle measures the state machine and transport only.
+ * Every thread drives its own {@link ChannelFsm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconnectCycleBenchmark {
+
+  @Param({"EMBEDDED", "LOCAL"})
+  public Transport transport;
+
+  @Param({"PREDICATE", "INDEXED"})
+  public DispatchMode dispatchMode;
+
+  private volatile CompletableFuture<Channel> reconnected;
+
+  private ChannelFsm fsm;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ChannelFsmConfig config = ChannelFsmConfig.newBuilder()
+        .setChannelActions(transport.newChannelActions())
+        .setDispatchMode(dispatchMode)
+        .setScheduler(Schedulers.IMMEDIATE)
+        .setMaxIdleSeconds(0)
+        .build();
+
+    fsm = new ChannelFsmFactory(config).newChannelFsm();
+
+    fsm.addTransitionListener((from, to, via) -> {
+      if (from == com.digitalpetri.netty.fsm.State.Reconnecting
+          && to == com.digitalpetri.netty.fsm.State.Connected) {
+        CompletableFuture<Channel> future = reconnected;
+        if (future != null) {
+          fsm.getChannel().thenAccept(future::complete);
+        }
+      }
+    });
+
+    fsm.connect().get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fsm.disconnect().get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Channel reconnect() throws Exception {
+    return cycle();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Channel reconnect_8threads() throws Exception {
+    return cycle();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Channel reconnect_32threads() throws Exception {
+    return cycle();
+  }
+
+  private Channel cycle() throws Exception {
+    CompletableFuture<Channel> future = new CompletableFuture<>();
+    reconnected = future;
+
+    fsm.getChannel().get().close();
+
+    return future.get();
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.ChannelFsmConfig;
+import com.digitalpetri.netty.fsm.ChannelFsmConfigBuilder;
+import com.digitalpetri.netty.fsm.ChannelFsmFactory;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end reconnect latency of a lazy {@link ChannelFsm} over the LOCAL transport: the
+ * connected {@link Channel} is closed, and once the FSM is Idle, {@code connect()} is timed
+ * until the new Channel is returned.
+ *
+ * <p>Compares an FSM running on the shared executor with one bound to an EventLoop that its
+ * Channels are also registered with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconnectLatencyBenchmark {
+
+  public enum Execution {
+    /**
+     * The default shared executor and scheduler.
+     */
+    EXECUTOR,
+
+    /**
+     * Bound to an EventLoop, which the LOCAL transport also registers its Channels with.
+     */
+    EVENT_LOOP
+  }
+
+  @Param({"EXECUTOR", "EVENT_LOOP"})
+  public Execution execution;
+
+  private volatile CompletableFuture<Void> idle;
+
+  private EventLoopGroup eventLoopGroup;
+  private ChannelFsm fsm;
+  private Channel channel;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ChannelFsmConfigBuilder builder = ChannelFsmConfig.newBuilder()
+        .setChannelActions(Transport.LOCAL.newChannelActions())
+        .setLazy(true)
+        .setMaxIdleSeconds(0);
+
+    if (execution == Execution.EVENT_LOOP) {
+      eventLoopGroup = new DefaultEventLoopGroup(1);
+      builder.setEventLoopGroup(eventLoopGroup);
+    }
+
+    fsm = new ChannelFsmFactory(builder.build()).newChannelFsm();
+
+    fsm.addTransitionListener((from, to, via) -> {
+      if (to == com.digitalpetri.netty.fsm.State.Idle) {
+        CompletableFuture<Void> future = idle;
+        if (future != null) {
+          future.complete(null);
+        }
+      }
+    });
+
+    channel = fsm.connect().get();
+  }
+
+  @Setup(Level.Invocation)
+  public void close() throws Exception {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    idle = future;
+
+    channel.close();
+
+    future.get();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fsm.disconnect().get();
+
+    if (eventLoopGroup != null) {
+      eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+  }
+
+  @Benchmark
+  public Channel reconnect() throws Exception {
+    channel = fsm.connect().get();
+
+    return channel;
+  }
+
+}
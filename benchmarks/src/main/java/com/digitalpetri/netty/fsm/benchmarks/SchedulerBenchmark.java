@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.Scheduler;
+import com.digitalpetri.netty.fsm.Scheduler.Cancellable;
+import io.netty.util.HashedWheelTimer;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduling and cancelling a reconnect delay while 100k other reconnect delays are pending, as
+ * during an outage that affects every FSM.
+ *
+ * <p>Pending delays are spread over 1-32 seconds like the default reconnect backoff. The
+ * {@code SCHEDULED_EXECUTOR} scheduler removes cancelled tasks from its queue so the number of
+ * pending delays stays constant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+  private static final int PENDING = 100_000;
+
+  public enum SchedulerType {
+    SCHEDULED_EXECUTOR,
+    HASHED_WHEEL_TIMER
+  }
+
+  @Param({"SCHEDULED_EXECUTOR", "HASHED_WHEEL_TIMER"})
+  public SchedulerType schedulerType;
+
+  private final SplittableRandom random = new SplittableRandom(0L);
+
+  private ScheduledThreadPoolExecutor scheduledExecutor;
+  private HashedWheelTimer wheelTimer;
+
+  private Scheduler scheduler;
+  private Cancellable[] pending;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    switch (schedulerType) {
+      case SCHEDULED_EXECUTOR:
+        scheduledExecutor = new ScheduledThreadPoolExecutor(1);
+        scheduledExecutor.setRemoveOnCancelPolicy(true);
+        scheduler = Scheduler.fromScheduledExecutor(scheduledExecutor);
+        break;
+      case HASHED_WHEEL_TIMER:
+        wheelTimer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        scheduler = Scheduler.fromTimer(wheelTimer);
+        break;
+      default:
+        throw new IllegalStateException("schedulerType: " + schedulerType);
+    }
+
+    pending = new Cancellable[PENDING];
+    for (int i = 0; i < PENDING; i++) {
+      pending[i] = scheduleReconnectDelay();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (scheduledExecutor != null) {
+      scheduledExecutor.shutdownNow();
+    }
+    if (wheelTimer != null) {
+      wheelTimer.stop();
+    }
+  }
+
+  /**
+   * Cancel the oldest pending reconnect delay and schedule a new one in its place.
+   */
+  @Benchmark
+  public boolean cancelAndSchedule() {
+    int i = next;
+    next = (i + 1) % PENDING;
+
+    boolean cancelled = pending[i].cancel();
+    pending[i] = scheduleReconnectDelay();
+
+    return cancelled;
+  }
+
+  private Cancellable scheduleReconnectDelay() {
+    // Far enough in the future that nothing fires during the benchmark.
+    long delay = 60_000L + random.nextLong(32_000L);
+
+    return scheduler.schedule(() -> {}, delay, TimeUnit.MILLISECONDS);
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.netty.fsm.Scheduler;
+
+final class Schedulers {
+
+  private Schedulers() {}
+
+  /**
+   * A {@link Scheduler} that ignores the requested delay and runs commands immediately, so
+   * reconnect cycles are not dominated by the reconnect backoff.
+   */
+  static final Scheduler IMMEDIATE = (command, delay, unit) -> {
+    command.run();
+
+    return () -> false;
+  };
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm.benchmarks;
+
+import com.digitalpetri.fsm.FsmContext;
+import com.digitalpetri.netty.fsm.ChannelActions;
+import com.digitalpetri.netty.fsm.ChannelFsm;
+import com.digitalpetri.netty.fsm.Event;
+import com.digitalpetri.netty.fsm.State;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link Channel} implementations benchmarks can connect with.
+ */
+public enum Transport {
+
+  /**
+   * {@link EmbeddedChannel}s that are "connected" as soon as they are created.
+   *
+   * <p>Isolates the cost of the state machine from any I/O.
+   */
+  EMBEDDED {
+    @Override
+    ChannelActions newChannelActions() {
+      return new ChannelActions() {
+        @Override
+        public CompletableFuture<Channel> connect(FsmContext<State, Event> ctx) {
+          return CompletableFuture.completedFuture(new EmbeddedChannel());
+        }
+
+        @Override
+        public CompletableFuture<Void> disconnect(FsmContext<State, Event> ctx, Channel channel) {
+          return toCompletableFuture(channel.close()).thenApply(c -> null);
+        }
+      };
+    }
+  },
+
+  /**
+   * {@link LocalChannel}s connected to a {@link LocalServerChannel}, so connects and closes go
+   * through a real event loop.
+   */
+  LOCAL {
+    @Override
+    ChannelActions newChannelActions() {
+      LocalAddress address = new LocalAddress("channel-fsm-" + SERVER_ID.incrementAndGet());
+
+      new ServerBootstrap()
+          .group(EventLoops.GROUP)
+          .channel(LocalServerChannel.class)
+          .childHandler(NoopHandler.INSTANCE)
+          .bind(address)
+          .syncUninterruptibly();
+
+      Bootstrap bootstrap = new Bootstrap()
+          .group(EventLoops.GROUP)
+          .channel(LocalChannel.class)
+          .handler(NoopHandler.INSTANCE);
+
+      return new ChannelActions() {
+        @Override
+        public CompletableFuture<Channel> connect(FsmContext<State, Event> ctx) {
+          // Register with the FSM's EventLoop when it is bound to one.
+          EventLoop eventLoop = ChannelFsm.getEventLoop(ctx);
+
+          if (eventLoop != null) {
+            return toCompletableFuture(bootstrap.clone(eventLoop).connect(address));
+          } else {
+            return toCompletableFuture(bootstrap.connect(address));
+          }
+        }
+
+        @Override
+        public CompletableFuture<Void> disconnect(FsmContext<State, Event> ctx, Channel channel) {
+          return toCompletableFuture(channel.close()).thenApply(c -> null);
+        }
+      };
+    }
+  };
+
+  private static final AtomicLong SERVER_ID = new AtomicLong(0L);
+
+  /**
+   * Create a new {@link ChannelActions} that connects {@link Channel}s of this transport.
+   *
+   * @return a new {@link ChannelActions}.
+   */
+  abstract ChannelActions newChannelActions();
+
+  private static CompletableFuture<Channel> toCompletableFuture(ChannelFuture channelFuture) {
+    CompletableFuture<Channel> future = new CompletableFuture<>();
+
+    channelFuture.addListener((ChannelFuture f) -> {
+      if (f.isSuccess()) {
+        future.complete(f.channel());
+      } else {
+        future.completeExceptionally(f.cause());
+      }
+    });
+
+    return future;
+  }
+
+  @Sharable
+  private static class NoopHandler extends ChannelInboundHandlerAdapter {
+
+    private static final NoopHandler INSTANCE = new NoopHandler();
+  }
+
+  private static class EventLoops {
+
+    private static final EventLoopGroup GROUP = new DefaultEventLoopGroup();
+  }
+
+}
@@ -21,6 +21,16 @@ public interface ChannelActions {
    * successfully when the Channel is ready to use or completes exceptionally if the Channel could
    * not be created or made ready to use for any reason.
    *
+   * <p>Implementations can report when each {@link ConnectPhase} completes using
+   * {@link ChannelFsm#recordConnectPhase(FsmContext, ConnectPhase)}, before completing the
+   * returned future, to have the connect latency broken down by phase in the configured
+   * {@link ChannelFsmMetrics}.
+   *
+   * <p>If the FSM is asked to disconnect before the returned future completes the attempt is
+   * cancelled: the FSM moves to {@link State#NotConnected} without waiting for it, and closes the
+   * Channel if the future completes with one anyway. Implementations can stop the attempt early
+   * by registering an action with {@link ChannelFsm#onConnectCancelled(FsmContext, Runnable)}.
+   *
    * @param ctx the {@link FsmContext}.
    * @return a {@link CompletableFuture} that completes successfully when the Channel is ready to
    *     use or completes exceptionally if the Channel could not be created or made ready to use for
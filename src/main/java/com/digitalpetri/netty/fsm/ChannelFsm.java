@@ -12,57 +12,453 @@ package com.digitalpetri.netty.fsm;
 
 import com.digitalpetri.fsm.Fsm;
 import com.digitalpetri.fsm.FsmContext;
-import com.digitalpetri.fsm.dsl.ActionContext;
-import com.digitalpetri.fsm.dsl.FsmBuilder;
+import com.digitalpetri.fsm.StrictMachine;
 import com.digitalpetri.fsm.dsl.TransitionAction;
 import com.digitalpetri.netty.fsm.Event.Connect;
 import com.digitalpetri.netty.fsm.Event.Disconnect;
 import com.digitalpetri.netty.fsm.Event.GetChannel;
 import com.digitalpetri.netty.fsm.Scheduler.Cancellable;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import org.slf4j.LoggerFactory;
 
 public class ChannelFsm {
 
-  private final List<TransitionListener> transitionListeners = new CopyOnWriteArrayList<>();
+  private static final AtomicLong NEXT_ID = new AtomicLong(0L);
+
+  private static final TransitionListenerOptions NOTIFY_ALL =
+      TransitionListenerOptions.newBuilder().build();
+
+  private final TransitionDispatcher transitionDispatcher = new TransitionDispatcher();
+
+  /**
+   * Identifies this FSM in JFR events.
+   */
+  private final long id = NEXT_ID.getAndIncrement();
 
   private final Fsm<State, Event> fsm;
 
-  ChannelFsm(FsmBuilder<State, Event> builder, State initialState) {
-    builder.addTransitionAction(new TransitionAction<State, Event>() {
-      @Override
-      public void execute(ActionContext<State, Event> context) {
-        transitionListeners.forEach(
-            listener ->
-                listener.onStateTransition(context.from(), context.to(), context.event())
-        );
-      }
+  /**
+   * The {@link EventLoop} this FSM is bound to, or {@code null} if it is not bound.
+   */
+  private final EventLoop eventLoop;
+
+  /**
+   * The {@link Executor} this FSM runs on; its lane when configured with a
+   * {@link StripedExecutor}, or its {@link EventLoop} when bound to one.
+   */
+  private final Executor executor;
+
+  /**
+   * The {@link Scheduler} this FSM schedules on; its {@link EventLoop} when bound to one.
+   */
+  private final Scheduler scheduler;
+
+  /**
+   * The {@link Channel} while the FSM is {@link State#Connected}, {@code null} otherwise.
+   */
+  private volatile Channel connectedChannel;
+
+  /**
+   * The {@link ConnectFuture}'s future while the FSM is {@link State#Connected}, {@code null}
+   * otherwise.
+   */
+  private volatile CompletableFuture<Channel> connectedFuture;
+
+  /**
+   * The {@link State} as of the last transition, readable without the FSM's lock.
+   */
+  private volatile State currentState;
+
+  /**
+   * The number of Connect events fired by {@link #connect()} that haven't been processed yet,
+   * i.e. that may still move the FSM out of {@link State#NotConnected}.
+   */
+  private final AtomicInteger pendingConnects = new AtomicInteger(0);
+
+  /**
+   * The number of futures returned by {@link #connect()} and {@link #getChannel()} that are
+   * waiting for a Channel.
+   */
+  private final AtomicInteger pendingWaiters = new AtomicInteger(0);
+
+  private final BiFunction<Channel, Throwable, Void> releaseWaiter = (channel, ex) -> {
+    pendingWaiters.decrementAndGet();
+    return null;
+  };
+
+  /**
+   * The maximum value of {@link #pendingWaiters}, or {@code 0} if there is no limit.
+   */
+  private final int maxPendingWaiters;
 
-      @Override
-      public boolean matches(State from, State to, Event event) {
-        return true;
+  /**
+   * Times out the futures returned by {@link #getChannel(Duration)}; created on first use.
+   */
+  private volatile WaiterTimeouts waiterTimeouts;
+
+  /**
+   * The messages passed to {@link #write(Object)} while not connected.
+   */
+  private final WriteQueue writeQueue;
+
+  /**
+   * The {@link System#nanoTime()} the current {@link State} was entered; maintained only when
+   * {@link ChannelFsmConfig#getMetrics()} is configured.
+   */
+  private long stateEnteredNanos = System.nanoTime();
+
+  /**
+   * The {@link System#nanoTime()} each {@link ConnectPhase} of the current connect attempt ended,
+   * or {@link #PHASE_NOT_RECORDED}.
+   */
+  private final AtomicLongArray connectPhaseNanos = new AtomicLongArray(CONNECT_PHASES.length);
+
+  /**
+   * The recent transitions of this FSM, or {@code null} if it doesn't keep a history.
+   */
+  private final TransitionHistory transitionHistory;
+
+  ChannelFsm(
+      ChannelFsmConfig config,
+      TransitionTable transitionTable,
+      State initialState,
+      Object userContext
+  ) {
+
+    this.currentState = initialState;
+    this.maxPendingWaiters = config.getMaxPendingWaiters();
+    WriteSpill writeSpill = null;
+    if (config.getWriteSpillDirectory() != null && config.getWriteSpillSegmentBytes() > 0) {
+      writeSpill = new WriteSpill(
+          config.getWriteSpillDirectory(),
+          config.getWriteSpillSegmentBytes(),
+          LoggerFactory.getLogger(config.getLoggerName())
+      );
+    }
+
+    this.writeQueue = new WriteQueue(
+        config.getMaxQueuedWrites(),
+        config.getMaxQueuedWriteBytes(),
+        config.getWriteOverflowPolicy(),
+        writeSpill,
+        config.getMetrics()
+    );
+
+    int transitionHistorySize = config.getTransitionHistorySize();
+    this.transitionHistory =
+        transitionHistorySize > 0 ? new TransitionHistory(transitionHistorySize) : null;
+
+    EventLoopGroup eventLoopGroup = config.getEventLoopGroup();
+
+    if (eventLoopGroup != null) {
+      this.eventLoop = eventLoopGroup.next();
+      this.executor = eventLoop;
+      this.scheduler = Scheduler.fromScheduledExecutor(eventLoop);
+    } else {
+      Executor executor = config.getExecutor();
+      if (executor instanceof StripedExecutor) {
+        executor = ((StripedExecutor) executor).lane(this);
       }
-    });
 
-    this.fsm = builder.build(initialState);
+      this.eventLoop = null;
+      this.executor = executor;
+      this.scheduler = config.getScheduler();
+    }
+
+    this.fsm = new StrictMachine<>(
+        config.getLoggerName(),
+        config.getLoggingContext(),
+        executor,
+        userContext,
+        null,
+        initialState,
+        transitionTable.transitionsForInstance(),
+        transitionTable.getTransitionActions()
+    );
+
+    fsm.withContext(ctx -> KEY_FSM.set(ctx, this));
+  }
+
+  /**
+   * Configure the actions that maintain the per-instance state of a {@link ChannelFsm}.
+   *
+   * <p>Must be called after all other actions have been configured.
+   *
+   * @param builder the {@link TransitionTable.Builder} to configure.
+   * @param config the {@link ChannelFsmConfig}.
+   */
+  static void configureInstanceActions(TransitionTable.Builder builder, ChannelFsmConfig config) {
+    builder.onAnyTransition()
+        .viaAny()
+        .executeFirst(ctx -> KEY_FSM.get(ctx).currentState = ctx.to());
+
+    // Clear the published Channel before any other action runs on the way out of Connected.
+    builder.onTransitionFrom(State.Connected)
+        .to(s -> s != State.Connected)
+        .viaAny()
+        .executeFirst(ctx -> {
+          ChannelFsm channelFsm = KEY_FSM.get(ctx);
+          channelFsm.connectedChannel = null;
+          channelFsm.connectedFuture = null;
+          channelFsm.writeQueue.disconnected();
+        });
+
+    builder.onTransitionTo(State.Connected)
+        .from(s -> s != State.Connected)
+        .via(Event.ConnectSuccess.class)
+        .execute(ctx -> {
+          ConnectFuture cf = KEY_CF.get(ctx);
+
+          if (cf != null) {
+            ChannelFsm channelFsm = KEY_FSM.get(ctx);
+            channelFsm.connectedChannel = ((Event.ConnectSuccess) ctx.event()).channel;
+            channelFsm.connectedFuture = cf.future;
+            channelFsm.writeQueue.connected(channelFsm.connectedChannel);
+          }
+        });
+
+    // Messages queued by write() were for a connection disconnect() says is no longer wanted.
+    builder.onTransitionTo(State.NotConnected)
+        .from(s -> s != State.NotConnected)
+        .via(Event.Disconnect.class, Event.DisconnectSuccess.class, Event.ConnectAborted.class)
+        .execute(ctx -> KEY_FSM.get(ctx).writeQueue.discard());
+
+    ChannelFsmMetrics metrics = config.getMetrics();
+
+    if (metrics != null) {
+      builder.onAnyTransition()
+          .viaAny()
+          .execute(ctx -> {
+            State from = ctx.from();
+            State to = ctx.to();
+
+            metrics.recordTransition(from, to, ctx.event().getClass());
+
+            if (from != to) {
+              ChannelFsm channelFsm = KEY_FSM.get(ctx);
+              long now = System.nanoTime();
+              metrics.recordDwell(from, now - channelFsm.stateEnteredNanos);
+              channelFsm.stateEnteredNanos = now;
+            }
+          });
+    }
+
+    if (config.getTransitionHistorySize() > 0) {
+      builder.onAnyTransition()
+          .viaAny()
+          .execute(ctx ->
+              KEY_FSM.get(ctx).transitionHistory.record(ctx.from(), ctx.to(), ctx.event())
+          );
+    }
+
+    if (JfrEvents.isAvailable()) {
+      builder.onAnyTransition()
+          .viaAny()
+          .execute(ctx ->
+              JfrEvents.transition(KEY_FSM.get(ctx).id, ctx.from(), ctx.to(), ctx.event())
+          );
+    }
+
+    builder.onAnyTransition()
+        .viaAny()
+        .execute(ctx ->
+            KEY_FSM.get(ctx).transitionDispatcher.dispatch(ctx.from(), ctx.to(), ctx.event())
+        );
   }
 
   public Fsm<State, Event> getFsm() {
     return fsm;
   }
 
+  /**
+   * Get the {@link Executor} this FSM runs its actions and completes its futures on.
+   *
+   * @return the {@link Executor} this FSM runs its actions and completes its futures on.
+   */
+  Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Get the id that identifies this FSM in JFR events.
+   *
+   * @return the id that identifies this FSM in JFR events.
+   */
+  long getId() {
+    return id;
+  }
+
+  /**
+   * Get the {@link Scheduler} this FSM schedules its timers on.
+   *
+   * @return the {@link Scheduler} this FSM schedules its timers on.
+   */
+  Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Get the {@link EventLoop} this FSM is bound to.
+   *
+   * <p>{@link ChannelActions} implementations should register the Channels they connect with this
+   * EventLoop, e.g. using {@code bootstrap.clone(eventLoop).connect()}, so that Channel and FSM
+   * share a thread.
+   *
+   * @return the {@link EventLoop} this FSM is bound to, or {@code null} if it is not bound to one.
+   * @see ChannelFsmConfig#getEventLoopGroup()
+   */
+  public EventLoop getEventLoop() {
+    return eventLoop;
+  }
+
+  /**
+   * Get the {@link EventLoop} the ChannelFsm that {@code ctx} belongs to is bound to.
+   *
+   * @param ctx the {@link FsmContext} passed to a {@link ChannelActions} method.
+   * @return the {@link EventLoop} the ChannelFsm is bound to, or {@code null} if it is not bound
+   *     to one.
+   * @see #getEventLoop()
+   */
+  public static EventLoop getEventLoop(FsmContext<State, Event> ctx) {
+    return KEY_FSM.get(ctx).eventLoop;
+  }
+
+  /**
+   * Record that {@code phase} of the connect attempt in progress has ended, now.
+   *
+   * <p>Called by {@link ChannelActions#connect} implementations, before completing the future
+   * they returned, when a {@link ChannelFsmMetrics} is configured and connect latency should be
+   * broken down by phase. Phases that are not recorded are not reported.
+   *
+   * @param ctx the {@link FsmContext} passed to {@link ChannelActions#connect}.
+   * @param phase the {@link ConnectPhase} that has ended.
+   * @see ChannelFsmMetrics#recordConnectPhase(ConnectPhase, long)
+   */
+  public static void recordConnectPhase(FsmContext<State, Event> ctx, ConnectPhase phase) {
+    KEY_FSM.get(ctx).connectPhaseNanos.set(phase.ordinal(), System.nanoTime());
+  }
+
+  /**
+   * Take one of the {@link #maxPendingWaiters} slots, if one is free.
+   *
+   * @return {@code true} if a slot was taken, {@code false} if the limit has been reached.
+   */
+  private boolean acquireWaiter() {
+    int waiters;
+    do {
+      waiters = pendingWaiters.get();
+
+      if (maxPendingWaiters > 0 && waiters >= maxPendingWaiters) {
+        return false;
+      }
+    } while (!pendingWaiters.compareAndSet(waiters, waiters + 1));
+
+    return true;
+  }
+
+  /**
+   * Run {@code action} if the connect attempt in progress is cancelled because the FSM was asked
+   * to disconnect, or the {@link ChannelFsmConfig#getConnectTimeoutMillis() connect timeout}
+   * elapsed, before the attempt completed.
+   *
+   * <p>Called by {@link ChannelActions#connect} implementations, before returning, to abort work
+   * that would otherwise run to completion, e.g. by cancelling the Netty connect future. A Channel
+   * the attempt produces after it has been cancelled is closed.
+   *
+   * @param ctx the {@link FsmContext} passed to {@link ChannelActions#connect}.
+   * @param action the action to run, on the FSM's executor, if the attempt is cancelled.
+   */
+  public static void onConnectCancelled(FsmContext<State, Event> ctx, Runnable action) {
+    ConnectAttempt attempt = KEY_CA.get(ctx);
+
+    if (attempt != null) {
+      attempt.onCancelled(action, KEY_FSM.get(ctx).executor);
+    }
+  }
+
+  /**
+   * A Connect event fired by {@link #connect()} has been processed.
+   */
+  void connectProcessed() {
+    pendingConnects.decrementAndGet();
+  }
+
+  /**
+   * Start timing a connect attempt.
+   *
+   * @return the {@link System#nanoTime()} the attempt started.
+   */
+  long startConnectAttempt() {
+    for (int i = 0; i < CONNECT_PHASES.length; i++) {
+      connectPhaseNanos.set(i, PHASE_NOT_RECORDED);
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Record the duration of the connect attempt started at {@code startNanos}, and of each of its
+   * recorded phases, to {@code metrics}.
+   *
+   * @param metrics the {@link ChannelFsmMetrics} to record to.
+   * @param startNanos the value returned by {@link #startConnectAttempt()}.
+   * @param success {@code true} if the attempt succeeded.
+   */
+  void recordConnectAttempt(ChannelFsmMetrics metrics, long startNanos, boolean success) {
+    metrics.recordConnect(System.nanoTime() - startNanos, success);
+
+    long previousNanos = startNanos;
+    for (int i = 0; i < CONNECT_PHASES.length; i++) {
+      long phaseNanos = connectPhaseNanos.get(i);
+      if (phaseNanos != PHASE_NOT_RECORDED) {
+        metrics.recordConnectPhase(CONNECT_PHASES[i], phaseNanos - previousNanos);
+        previousNanos = phaseNanos;
+      }
+    }
+  }
+
   /**
    * Fire a {@link Connect} event and return a {@link CompletableFuture} that completes successfully
    * with the {@link Channel} if a successful connection is made, or already exists, and completes
    * exceptionally otherwise.
    *
+   * <p>If the FSM is already {@link State#Connected} no event is fired and a copy of the future of
+   * the current connection is returned.
+   *
+   * <p>Otherwise, if {@link ChannelFsmConfig#getMaxPendingWaiters()} callers are already waiting
+   * for a Channel, no event is fired and the returned future has already failed with a
+   * {@link WaiterLimitExceededException}.
+   *
    * @return a {@link CompletableFuture} that completes successfully with the {@link Channel} if a
    *     successful connection was made, or already exists, and completes exceptionally otherwise.
    */
   public CompletableFuture<Channel> connect() {
+    CompletableFuture<Channel> future = connectedFuture;
+
+    if (future != null) {
+      // Already Connected; a Connect event would complete with the same Channel. The future is
+      // shared by every caller until the connection is lost, so hand out a copy.
+      return future.copy();
+    }
+
+    if (!acquireWaiter()) {
+      return CompletableFuture.failedFuture(new WaiterLimitExceededException(maxPendingWaiters));
+    }
+
     Connect connect = new Connect();
+    connect.counted = true;
+    pendingConnects.incrementAndGet();
+    connect.channelFuture.handle(releaseWaiter);
 
     fsm.fireEvent(connect);
 
@@ -73,10 +469,23 @@ public class ChannelFsm {
    * Fire a {@link Disconnect} event and return a {@link CompletableFuture} that completes
    * successfully when the {@link Channel} has been closed.
    *
+   * <p>If the FSM is already {@link State#NotConnected}, and no Connect fired by
+   * {@link #connect()} is still waiting to be processed, no event is fired and a completed
+   * future is returned.
+   *
+   * <p>A connect attempt in progress is cancelled rather than waited for; see
+   * {@link #onConnectCancelled(FsmContext, Runnable)}.
+   *
    * @return a {@link CompletableFuture} that completes successfully when the {@link Channel} has
    *     been closed.
    */
   public CompletableFuture<Void> disconnect() {
+    if (currentState == State.NotConnected && pendingConnects.get() == 0) {
+      // Already NotConnected, and no Connect fired by connect() is waiting to change that; a
+      // Disconnect event would complete immediately.
+      return CompletableFuture.completedFuture(null);
+    }
+
     Disconnect disconnect = new Disconnect();
 
     fsm.fireEvent(disconnect);
@@ -117,6 +526,10 @@ public class ChannelFsm {
    *
    * <p>The returned CompletableFuture always fails exceptionally if the FSM is not connected.
    *
+   * <p>If the FSM is not {@link State#Connected} and
+   * {@link ChannelFsmConfig#getMaxPendingWaiters()} callers are already waiting for a Channel, the
+   * returned future has already failed with a {@link WaiterLimitExceededException}.
+   *
    * @param waitForReconnect when {@code true} and the state machine is in
    *     {@link State#ReconnectWait} the future will not be completed until the result of the
    *     subsequent reconnect attempt has been obtained. When {@code false} and the state machine is
@@ -127,30 +540,145 @@ public class ChannelFsm {
    *     connection attempt failed.
    */
   public CompletableFuture<Channel> getChannel(boolean waitForReconnect) {
-    CompletableFuture<Channel> future = fsm.getFromContext(ctx -> {
-      State state = ctx.currentState();
-
-      if (state == State.Connected) {
-        ConnectFuture cf = KEY_CF.get(ctx);
-
-        assert cf != null;
-
-        return cf.future;
-      } else {
-        return null;
-      }
-    });
+    CompletableFuture<Channel> future = connectedFuture;
 
     if (future != null) {
       return future;
     } else {
       // "Slow" path... not connected yet.
-      GetChannel getChannel = new GetChannel(waitForReconnect);
+      return fireGetChannel(waitForReconnect);
+    }
+  }
+
+  /**
+   * Fire a {@link GetChannel} event and return a {@link CompletableFuture} that completes
+   * successfully when the {@link Channel} is available, and completes exceptionally if the FSM is
+   * not currently connected, the connection attempt failed, or {@code timeout} elapses first.
+   *
+   * <p>Like {@link #getChannel()} this waits for a reconnect in progress. The timeout is enforced
+   * by this FSM's {@link Scheduler}, with one scheduled task shared by all pending calls, and a
+   * call that times out, or whose future is cancelled, stops waiting right away.
+   *
+   * @param timeout how long to wait for the Channel.
+   * @return a {@link CompletableFuture} that completes successfully when the {@link Channel} is
+   *     available, or exceptionally, with a {@link java.util.concurrent.TimeoutException} if
+   *     {@code timeout} elapsed first.
+   */
+  public CompletableFuture<Channel> getChannel(Duration timeout) {
+    CompletableFuture<Channel> future = connectedFuture;
+
+    if (future != null) {
+      // Shared by every caller until the connection is lost, and completed by a separate task
+      // after it's published; time out a copy so only this call can fail.
+      future = future.copy();
+    } else {
+      future = fireGetChannel(true);
+    }
+
+    if (!future.isDone()) {
+      getWaiterTimeouts().add(future, timeout.toNanos());
+    }
+
+    return future;
+  }
+
+  private CompletableFuture<Channel> fireGetChannel(boolean waitForReconnect) {
+    if (!acquireWaiter()) {
+      return CompletableFuture.failedFuture(new WaiterLimitExceededException(maxPendingWaiters));
+    }
+
+    GetChannel getChannel = new GetChannel(waitForReconnect);
+    getChannel.channelFuture.handle(releaseWaiter);
+
+    fsm.fireEvent(getChannel);
+
+    return getChannel.channelFuture;
+  }
 
-      fsm.fireEvent(getChannel);
+  private WaiterTimeouts getWaiterTimeouts() {
+    WaiterTimeouts timeouts = waiterTimeouts;
 
-      return getChannel.channelFuture;
+    if (timeouts == null) {
+      synchronized (this) {
+        timeouts = waiterTimeouts;
+        if (timeouts == null) {
+          waiterTimeouts = timeouts = new WaiterTimeouts(scheduler, executor);
+        }
+      }
     }
+
+    return timeouts;
+  }
+
+  /**
+   * Write {@code msg} to the {@link Channel}, without firing an event or allocating a future.
+   *
+   * <p>If the FSM is {@link State#Connected} {@code msg} is written and flushed right away.
+   * Otherwise it is queued, up to {@link ChannelFsmConfig#getMaxQueuedWrites()} messages and
+   * {@link ChannelFsmConfig#getMaxQueuedWriteBytes()} bytes, and written, in order and with the
+   * rest of the queue, followed by a single flush, once the FSM is connected. Queued messages
+   * are released if the FSM is disconnected by {@link #disconnect()}.
+   *
+   * <p>With a {@link ChannelFsmConfig#getWriteSpillDirectory() spill directory} configured,
+   * {@link io.netty.buffer.ByteBuf}s that don't fit are copied to a memory-mapped file, and
+   * released, rather than dropped.
+   *
+   * <p>Writes use the Channel's void promise, so a failed write is reported to its pipeline's
+   * {@code exceptionCaught} rather than to the caller.
+   *
+   * @param msg the message to write. Ownership passes to this FSM; a message that is dropped is
+   *     released.
+   * @return {@code true} if {@code msg} was written or queued, {@code false} if it was dropped
+   *     because the queue was full.
+   * @see ChannelFsmConfig#getWriteOverflowPolicy()
+   */
+  public boolean write(Object msg) {
+    return writeQueue.write(msg);
+  }
+
+  /**
+   * Get the number of messages passed to {@link #write(Object)} that are queued, or spilled,
+   * until the FSM is connected.
+   *
+   * @return the number of queued messages, including spilled messages.
+   */
+  public int getQueuedWriteCount() {
+    return writeQueue.size();
+  }
+
+  /**
+   * Get the {@link Channel} if the FSM is currently {@link State#Connected}, without firing an
+   * event, acquiring a lock, or allocating.
+   *
+   * <p>Unlike {@link #getChannel()} this never waits for a connect or reconnect in progress.
+   *
+   * @return the {@link Channel} if the FSM is currently {@link State#Connected}, otherwise
+   *     {@code null}.
+   */
+  public Channel getChannelNow() {
+    return connectedChannel;
+  }
+
+  /**
+   * Get the number of futures returned by {@link #connect()} and {@link #getChannel()} that are
+   * still waiting for a Channel.
+   *
+   * @return the number of callers waiting for a Channel.
+   * @see ChannelFsmConfig#getMaxPendingWaiters()
+   */
+  public int getPendingWaiterCount() {
+    return pendingWaiters.get();
+  }
+
+  /**
+   * Get the most recent transitions of this FSM, oldest first.
+   *
+   * @return the most recent transitions of this FSM, oldest first, or an empty List if it
+   *     doesn't keep a history.
+   * @see ChannelFsmConfig#getTransitionHistorySize()
+   */
+  public List<TransitionHistory.Entry> getTransitionHistory() {
+    return transitionHistory != null ? transitionHistory.snapshot() : List.of();
   }
 
   /**
@@ -163,12 +691,31 @@ public class ChannelFsm {
   }
 
   /**
-   * Add a {@link TransitionListener}.
+   * Add a {@link TransitionListener} that is notified of every transition, synchronously.
    *
    * @param transitionListener the {@link TransitionListener}.
    */
   public void addTransitionListener(TransitionListener transitionListener) {
-    transitionListeners.add(transitionListener);
+    addTransitionListener(transitionListener, NOTIFY_ALL);
+  }
+
+  /**
+   * Add a {@link TransitionListener} that is notified of the transitions, and in the way,
+   * described by {@code options}.
+   *
+   * <p>Listeners are only visited for transitions that pass their {@link State} and
+   * {@link Event} type filters, so a listener interested in few transitions costs nothing for
+   * the rest.
+   *
+   * @param transitionListener the {@link TransitionListener}.
+   * @param options the {@link TransitionListenerOptions}.
+   */
+  public void addTransitionListener(
+      TransitionListener transitionListener,
+      TransitionListenerOptions options
+  ) {
+
+    transitionDispatcher.add(transitionListener, options);
   }
 
   /**
@@ -177,29 +724,169 @@ public class ChannelFsm {
    * @param transitionListener the {@link TransitionListener}.
    */
   public void removeTransitionListener(TransitionListener transitionListener) {
-    transitionListeners.remove(transitionListener);
+    transitionDispatcher.remove(transitionListener);
   }
 
+  private static final ConnectPhase[] CONNECT_PHASES = ConnectPhase.values();
+
+  private static final long PHASE_NOT_RECORDED = Long.MIN_VALUE;
+
+  static final FsmContext.Key<ChannelFsm> KEY_FSM =
+      new FsmContext.Key<>("channelFsm", ChannelFsm.class);
+
   static final FsmContext.Key<ConnectFuture> KEY_CF =
       new FsmContext.Key<>("connectFuture", ConnectFuture.class);
 
+  static final FsmContext.Key<ConnectAttempt> KEY_CA =
+      new FsmContext.Key<>("connectAttempt", ConnectAttempt.class);
+
   static final FsmContext.Key<DisconnectFuture> KEY_DF =
       new FsmContext.Key<>("disconnectFuture", DisconnectFuture.class);
 
+  /**
+   * The delay, in milliseconds, before the pending or most recent reconnect attempt.
+   */
   static final FsmContext.Key<Long> KEY_RD =
       new FsmContext.Key<>("reconnectDelay", Long.class);
 
+  static final FsmContext.Key<Integer> KEY_RA =
+      new FsmContext.Key<>("reconnectAttempt", Integer.class);
+
   static final FsmContext.Key<Cancellable> KEY_RDF =
       new FsmContext.Key<>("reconnectDelayCancellable", Cancellable.class);
 
   static class ConnectFuture {
 
     final CompletableFuture<Channel> future = new CompletableFuture<>();
+
+    // future is always completed from a task on the FSM's executor; complete every waiter as
+    // part of that task rather than with a task each.
+    private final WaiterList<Channel> waiters = new WaiterList<>(future);
+
+    /**
+     * Complete {@code waiter} with the result of {@link #future} when it completes.
+     *
+     * <p>If {@code waiter} completes first, e.g. because it timed out or was cancelled, it is
+     * unlinked right away rather than held until {@link #future} completes.
+     *
+     * @param waiter the future to complete.
+     * @param executor the {@link Executor} to complete {@code waiter} on if {@link #future} has
+     *     already completed.
+     */
+    void addWaiter(CompletableFuture<Channel> waiter, Executor executor) {
+      waiters.add(waiter, executor);
+    }
+
+    /**
+     * Get the number of waiters that haven't completed yet.
+     *
+     * @return the number of waiters that haven't completed yet.
+     */
+    int getWaiterCount() {
+      return waiters.size();
+    }
+  }
+
+  /**
+   * A single call to {@link ChannelActions#connect}, which either has its result fired or is
+   * cancelled, never both.
+   */
+  static class ConnectAttempt {
+
+    private boolean completed = false;
+    private Throwable cancelCause;
+
+    private List<Runnable> cancelActions;
+
+    /**
+     * The attempt has produced a result.
+     *
+     * @return {@code true} if the result should be fired, {@code false} if the attempt was
+     *     cancelled first.
+     */
+    synchronized boolean complete() {
+      if (cancelCause != null) {
+        return false;
+      }
+      completed = true;
+      return true;
+    }
+
+    /**
+     * Cancel the attempt, unless it has already produced a result.
+     *
+     * @param cause why the attempt was cancelled.
+     * @param executor the {@link Executor} to run the actions registered with
+     *     {@link #onCancelled(Runnable, Executor)} on.
+     * @return {@code true} if the attempt was cancelled, {@code false} if it had already produced
+     *     a result or been cancelled.
+     */
+    boolean cancel(Throwable cause, Executor executor) {
+      List<Runnable> actions;
+
+      synchronized (this) {
+        if (completed || cancelCause != null) {
+          return false;
+        }
+        cancelCause = cause;
+        actions = cancelActions;
+        cancelActions = null;
+      }
+
+      if (actions != null) {
+        actions.forEach(executor::execute);
+      }
+
+      return true;
+    }
+
+    synchronized boolean isCancelled() {
+      return cancelCause != null;
+    }
+
+    /**
+     * Get why the attempt was cancelled.
+     *
+     * @return why the attempt was cancelled, or {@code null} if it wasn't.
+     */
+    synchronized Throwable getCancelCause() {
+      return cancelCause;
+    }
+
+    void onCancelled(Runnable action, Executor executor) {
+      synchronized (this) {
+        if (completed) {
+          return;
+        }
+        if (cancelCause == null) {
+          if (cancelActions == null) {
+            cancelActions = new ArrayList<>(2);
+          }
+          cancelActions.add(action);
+          return;
+        }
+      }
+
+      executor.execute(action);
+    }
   }
 
   static class DisconnectFuture {
 
     final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private final WaiterList<Void> waiters = new WaiterList<>(future);
+
+    /**
+     * Complete {@code waiter} when {@link #future} completes.
+     *
+     * @param waiter the future to complete.
+     * @param executor the {@link Executor} to complete {@code waiter} on if {@link #future} has
+     *     already completed.
+     */
+    void addWaiter(CompletableFuture<Void> waiter, Executor executor) {
+      waiters.add(waiter, executor);
+    }
   }
 
   public interface TransitionListener {
@@ -210,7 +897,8 @@ public class ChannelFsm {
      * <p>Transitions may be internal, i.e. the {@code from} and {@code to} state are the same.
      *
      * <p>Listener notification is implemented as a {@link TransitionAction}, so take care not to
-     * block in this callback as it will block the state machine evaluation as well.
+     * block in this callback as it will block the state machine evaluation as well, unless the
+     * listener was added with an {@link TransitionListenerOptions#getExecutor() Executor}.
      *
      * @param from the {@link State} transitioned from.
      * @param to the {@link State} transitioned to.
@@ -10,6 +10,9 @@
 
 package com.digitalpetri.netty.fsm;
 
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
@@ -59,6 +62,28 @@ public interface ChannelFsmConfig {
    */
   int getMaxReconnectDelaySeconds();
 
+  /**
+   * Get the {@link ReconnectPolicy} that computes the delay between reconnect attempts.
+   *
+   * <p>If {@code null} the delay starts at 1 second and doubles after each failed attempt, up to
+   * {@link #getMaxReconnectDelaySeconds()} rounded up to the next power of two.
+   *
+   * @return the {@link ReconnectPolicy} that computes the delay between reconnect attempts, or
+   *     {@code null} to use the default backoff.
+   */
+  default ReconnectPolicy getReconnectPolicy() {
+    return null;
+  }
+
+  /**
+   * Get the {@link DispatchMode} the FSM uses to resolve transitions and actions.
+   *
+   * @return the {@link DispatchMode} the FSM uses to resolve transitions and actions.
+   */
+  default DispatchMode getDispatchMode() {
+    return DispatchMode.PREDICATE;
+  }
+
   /**
    * Get the {@link ChannelActions} delegate.
    *
@@ -66,6 +91,31 @@ public interface ChannelFsmConfig {
    */
   ChannelActions getChannelActions();
 
+  /**
+   * Get the {@link ConnectAdmissionController} connect attempts must be admitted by, or
+   * {@code null} if connect attempts are not limited.
+   *
+   * @return the {@link ConnectAdmissionController} connect attempts must be admitted by, or
+   *     {@code null}.
+   */
+  default ConnectAdmissionController getConnectAdmissionController() {
+    return null;
+  }
+
+  /**
+   * Get how long, in milliseconds, a connect attempt may take before it is cancelled and treated
+   * as failed, or {@code 0} if connect attempts don't time out.
+   *
+   * <p>The timeout is enforced by the FSM's {@link #getScheduler() Scheduler}; a Channel the
+   * attempt produces after timing out is closed.
+   *
+   * @return how long, in milliseconds, a connect attempt may take, or {@code 0}.
+   * @see ChannelFsm#onConnectCancelled(com.digitalpetri.fsm.FsmContext, Runnable)
+   */
+  default long getConnectTimeoutMillis() {
+    return 0L;
+  }
+
   /**
    * Get the {@link Executor} to use.
    *
@@ -80,6 +130,122 @@ public interface ChannelFsmConfig {
    */
   Scheduler getScheduler();
 
+  /**
+   * Get the {@link EventLoopGroup} ChannelFsm instances are bound to, or {@code null} if they are
+   * not bound to an {@link EventLoop}.
+   *
+   * <p>Each ChannelFsm is bound to one {@link EventLoop} from this group and uses it in place of
+   * both the {@link #getExecutor() Executor} and the {@link #getScheduler() Scheduler}.
+   *
+   * @return the {@link EventLoopGroup} ChannelFsm instances are bound to, or {@code null}.
+   * @see ChannelFsm#getEventLoop()
+   */
+  default EventLoopGroup getEventLoopGroup() {
+    return null;
+  }
+
+  /**
+   * Get the {@link ChannelFsmMetrics} ChannelFsm instances record metrics to, or {@code null} if
+   * they don't record metrics.
+   *
+   * @return the {@link ChannelFsmMetrics} ChannelFsm instances record metrics to, or
+   *     {@code null}.
+   */
+  default ChannelFsmMetrics getMetrics() {
+    return null;
+  }
+
+  /**
+   * Get the number of recent transitions each ChannelFsm keeps in its
+   * {@link TransitionHistory}, or {@code 0} if they don't keep one.
+   *
+   * @return the number of recent transitions each ChannelFsm keeps.
+   * @see ChannelFsm#getTransitionHistory()
+   */
+  default int getTransitionHistorySize() {
+    return 0;
+  }
+
+  /**
+   * Get the maximum number of callers of {@link ChannelFsm#connect()} and
+   * {@link ChannelFsm#getChannel()} each ChannelFsm lets wait for a Channel at a time, or
+   * {@code 0} if there is no limit.
+   *
+   * <p>Callers over the limit get a future that has already failed with a
+   * {@link WaiterLimitExceededException}.
+   *
+   * @return the maximum number of callers each ChannelFsm lets wait for a Channel, or {@code 0}.
+   * @see ChannelFsm#getPendingWaiterCount()
+   */
+  default int getMaxPendingWaiters() {
+    return 0;
+  }
+
+  /**
+   * Get the maximum number of messages passed to {@link ChannelFsm#write(Object)} each ChannelFsm
+   * queues while it isn't connected.
+   *
+   * @return the maximum number of messages each ChannelFsm queues while it isn't connected.
+   * @see #getWriteOverflowPolicy()
+   */
+  default int getMaxQueuedWrites() {
+    return 1024;
+  }
+
+  /**
+   * Get the maximum total size, in bytes, of the messages passed to
+   * {@link ChannelFsm#write(Object)} each ChannelFsm queues while it isn't connected.
+   *
+   * <p>Sizes are estimated the way Netty does for a Channel's outbound buffer, i.e. readable
+   * bytes for {@link io.netty.buffer.ByteBuf}s.
+   *
+   * @return the maximum total size, in bytes, of the messages each ChannelFsm queues.
+   * @see #getWriteOverflowPolicy()
+   */
+  default long getMaxQueuedWriteBytes() {
+    return 1024L * 1024L;
+  }
+
+  /**
+   * Get the {@link WriteOverflowPolicy} applied to a message passed to
+   * {@link ChannelFsm#write(Object)} while the FSM isn't connected and its write queue is full.
+   *
+   * @return the {@link WriteOverflowPolicy} applied when the write queue is full.
+   */
+  default WriteOverflowPolicy getWriteOverflowPolicy() {
+    return WriteOverflowPolicy.DROP_OLDEST;
+  }
+
+  /**
+   * Get the directory each ChannelFsm spills {@link io.netty.buffer.ByteBuf} messages passed to
+   * {@link ChannelFsm#write(Object)} to when its write queue is full, or {@code null} if they
+   * aren't spilled.
+   *
+   * <p>Spilled messages are copied into an append-only segment of a memory-mapped file, created
+   * on first use, and replayed, in order and without copying, after the rest of the queue once
+   * the FSM is connected. Once a message has been spilled, later messages that can't be, because
+   * they aren't ByteBufs or the segment is full, are dropped rather than subject to the
+   * {@link #getWriteOverflowPolicy() WriteOverflowPolicy}.
+   *
+   * @return the directory spilled messages are written to, or {@code null}.
+   * @see #getWriteSpillSegmentBytes()
+   * @see ChannelFsmMetrics#recordWriteSpill(int, long)
+   */
+  default Path getWriteSpillDirectory() {
+    return null;
+  }
+
+  /**
+   * Get the size, in bytes, of the segment each ChannelFsm maps to spill messages to; each
+   * message takes its size plus 4 bytes.
+   *
+   * @return the size, in bytes, of the segment spilled messages are written to.
+   * @see #getWriteSpillDirectory()
+   */
+  default int getWriteSpillSegmentBytes() {
+    return 64 * 1024 * 1024;
+  }
+
   /**
    * Get the logger name the FSM should use.
    *
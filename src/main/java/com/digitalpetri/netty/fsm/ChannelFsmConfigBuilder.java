@@ -10,6 +10,10 @@
 
 package com.digitalpetri.netty.fsm;
 
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -17,6 +21,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ChannelFsmConfigBuilder {
 
@@ -26,9 +31,24 @@ public class ChannelFsmConfigBuilder {
   private boolean persistent = true;
   private int maxIdleSeconds = 15;
   private int maxReconnectDelaySeconds = DEFAULT_MAX_RECONNECT_DELAY_SECONDS;
+  private ReconnectPolicy reconnectPolicy;
+  private DispatchMode dispatchMode = DispatchMode.PREDICATE;
   private ChannelActions channelActions;
+  private ConnectAdmissionController connectAdmissionController;
+  private long connectTimeoutMillis = 0L;
   private Executor executor;
+  private boolean stripedExecutor = false;
   private Scheduler scheduler;
+  private boolean wheelTimerScheduler = false;
+  private EventLoopGroup eventLoopGroup;
+  private ChannelFsmMetrics metrics;
+  private int transitionHistorySize = 0;
+  private int maxPendingWaiters = 0;
+  private int maxQueuedWrites = 1024;
+  private long maxQueuedWriteBytes = 1024L * 1024L;
+  private WriteOverflowPolicy writeOverflowPolicy = WriteOverflowPolicy.DROP_OLDEST;
+  private Path writeSpillDirectory;
+  private int writeSpillSegmentBytes = 64 * 1024 * 1024;
   private String loggerName;
   private Map<String, String> loggingContext = Collections.emptyMap();
   private Object userContext;
@@ -75,6 +95,28 @@ public class ChannelFsmConfigBuilder {
     return this;
   }
 
+  /**
+   * @param reconnectPolicy the {@link ReconnectPolicy} that computes the delay between reconnect
+   *     attempts. Replaces the default backoff and {@link #setMaxReconnectDelaySeconds(int)}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getReconnectPolicy()
+   */
+  public ChannelFsmConfigBuilder setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+    this.reconnectPolicy = reconnectPolicy;
+    return this;
+  }
+
+  /**
+   * @param dispatchMode the {@link DispatchMode} the FSM uses to resolve transitions and
+   *     actions.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getDispatchMode()
+   */
+  public ChannelFsmConfigBuilder setDispatchMode(DispatchMode dispatchMode) {
+    this.dispatchMode = dispatchMode;
+    return this;
+  }
+
   /**
    * @param channelActions the {@link ChannelActions} delegate.
    * @return this {@link ChannelFsmConfigBuilder}.
@@ -86,6 +128,41 @@ public class ChannelFsmConfigBuilder {
   }
 
   /**
+   * @param connectAdmissionController the {@link ConnectAdmissionController} connect attempts
+   *     must be admitted by. May be shared with other configs.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getConnectAdmissionController()
+   */
+  public ChannelFsmConfigBuilder setConnectAdmissionController(
+      ConnectAdmissionController connectAdmissionController
+  ) {
+
+    this.connectAdmissionController = connectAdmissionController;
+    return this;
+  }
+
+  /**
+   * Cancel connect attempts that haven't completed within {@code connectTimeoutMillis} and treat
+   * them as failed, with an {@link io.netty.channel.ConnectTimeoutException}.
+   *
+   * <p>{@code 0}, the default, leaves timing out to the {@link ChannelActions} implementation.
+   *
+   * @param connectTimeoutMillis how long, in milliseconds, a connect attempt may take, or
+   *     {@code 0}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getConnectTimeoutMillis()
+   */
+  public ChannelFsmConfigBuilder setConnectTimeoutMillis(long connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set the {@link Executor} to use.
+   *
+   * <p>If {@code executor} is a {@link StripedExecutor} each ChannelFsm is pinned to one of its
+   * lanes.
+   *
    * @param executor the {@link Executor} to use.
    * @return this {@link ChannelFsmConfigBuilder}.
    * @see ChannelFsmConfig#getExecutor()
@@ -95,6 +172,19 @@ public class ChannelFsmConfigBuilder {
     return this;
   }
 
+  /**
+   * Use the shared {@link StripedExecutor} instead of the single-threaded shared executor when
+   * no {@link Executor} has been set.
+   *
+   * @param stripedExecutor {@code true} if the shared {@link StripedExecutor} should be used.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see StripedExecutor#shared()
+   */
+  public ChannelFsmConfigBuilder setStripedExecutor(boolean stripedExecutor) {
+    this.stripedExecutor = stripedExecutor;
+    return this;
+  }
+
   /**
    * @param scheduler the {@link Scheduler} to use.
    * @return this {@link ChannelFsmConfigBuilder}.
@@ -115,6 +205,169 @@ public class ChannelFsmConfigBuilder {
     return this;
   }
 
+  /**
+   * @param timer the {@link Timer} to use, e.g. a {@link HashedWheelTimer}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getScheduler()
+   * @see Scheduler#fromTimer(Timer)
+   */
+  public ChannelFsmConfigBuilder setScheduler(Timer timer) {
+    this.scheduler = Scheduler.fromTimer(timer);
+    return this;
+  }
+
+  /**
+   * Use a shared {@link HashedWheelTimer} instead of the shared
+   * {@link ScheduledExecutorService} when no {@link Scheduler} has been set.
+   *
+   * <p>Scheduling and cancelling on a {@link HashedWheelTimer} are O(1), at the cost of
+   * resolution: delays are rounded up to the next 10ms tick.
+   *
+   * @param wheelTimerScheduler {@code true} if the shared {@link HashedWheelTimer} should be
+   *     used.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   */
+  public ChannelFsmConfigBuilder setWheelTimerScheduler(boolean wheelTimerScheduler) {
+    this.wheelTimerScheduler = wheelTimerScheduler;
+    return this;
+  }
+
+  /**
+   * Bind each ChannelFsm to an {@link io.netty.channel.EventLoop} from {@code eventLoopGroup}.
+   *
+   * <p>A bound ChannelFsm runs its actions, timers, and future completions on its EventLoop
+   * instead of the configured {@link Executor} and {@link Scheduler}.
+   *
+   * @param eventLoopGroup the {@link EventLoopGroup} to bind ChannelFsm instances to.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getEventLoopGroup()
+   */
+  public ChannelFsmConfigBuilder setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+    this.eventLoopGroup = eventLoopGroup;
+    return this;
+  }
+
+  /**
+   * Record transition counts and per-{@link State} dwell times to {@code metrics}.
+   *
+   * <p>No metrics are recorded, and no cost is paid, when this is not set.
+   *
+   * @param metrics the {@link ChannelFsmMetrics} to record to, e.g. a {@link TransitionMetrics}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getMetrics()
+   */
+  public ChannelFsmConfigBuilder setMetrics(ChannelFsmMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Keep the last {@code transitionHistorySize} transitions of each ChannelFsm in a
+   * {@link TransitionHistory}, to be dumped on demand when diagnosing a misbehaving connection.
+   *
+   * <p>Each ChannelFsm allocates its history up front, about 14 bytes per entry; recording
+   * doesn't allocate. {@code 0}, the default, keeps no history.
+   *
+   * @param transitionHistorySize the number of recent transitions to keep, or {@code 0}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getTransitionHistorySize()
+   */
+  public ChannelFsmConfigBuilder setTransitionHistorySize(int transitionHistorySize) {
+    this.transitionHistorySize = transitionHistorySize;
+    return this;
+  }
+
+  /**
+   * Limit the number of callers of {@link ChannelFsm#connect()} and
+   * {@link ChannelFsm#getChannel()} each ChannelFsm lets wait for a Channel at a time.
+   *
+   * <p>While an FSM is connecting or waiting to reconnect, e.g. during an outage, every caller
+   * waits, and all of them are completed at once when the attempt completes. With a limit, callers
+   * over it fail immediately with a {@link WaiterLimitExceededException} instead. {@code 0}, the
+   * default, is no limit.
+   *
+   * @param maxPendingWaiters the maximum number of callers waiting for a Channel, or {@code 0}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getMaxPendingWaiters()
+   */
+  public ChannelFsmConfigBuilder setMaxPendingWaiters(int maxPendingWaiters) {
+    this.maxPendingWaiters = maxPendingWaiters;
+    return this;
+  }
+
+  /**
+   * Limit the number of messages passed to {@link ChannelFsm#write(Object)} each ChannelFsm
+   * queues while it isn't connected. {@code 0} queues nothing; messages written while not
+   * connected are dropped.
+   *
+   * @param maxQueuedWrites the maximum number of messages queued while not connected.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getMaxQueuedWrites()
+   */
+  public ChannelFsmConfigBuilder setMaxQueuedWrites(int maxQueuedWrites) {
+    this.maxQueuedWrites = maxQueuedWrites;
+    return this;
+  }
+
+  /**
+   * Limit the total size, in bytes, of the messages passed to {@link ChannelFsm#write(Object)}
+   * each ChannelFsm queues while it isn't connected.
+   *
+   * @param maxQueuedWriteBytes the maximum total size, in bytes, of the messages queued while
+   *     not connected.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getMaxQueuedWriteBytes()
+   */
+  public ChannelFsmConfigBuilder setMaxQueuedWriteBytes(long maxQueuedWriteBytes) {
+    this.maxQueuedWriteBytes = maxQueuedWriteBytes;
+    return this;
+  }
+
+  /**
+   * @param writeOverflowPolicy the {@link WriteOverflowPolicy} applied when the write queue is
+   *     full.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getWriteOverflowPolicy()
+   */
+  public ChannelFsmConfigBuilder setWriteOverflowPolicy(WriteOverflowPolicy writeOverflowPolicy) {
+    this.writeOverflowPolicy = writeOverflowPolicy;
+    return this;
+  }
+
+  /**
+   * Spill {@link io.netty.buffer.ByteBuf} messages passed to {@link ChannelFsm#write(Object)}
+   * that don't fit in the write queue to a memory-mapped file in {@code writeSpillDirectory},
+   * to be replayed once connected, rather than dropping them.
+   *
+   * <p>Meant for outages that outlast what can be kept on the heap. {@code null}, the default,
+   * doesn't spill.
+   *
+   * @param writeSpillDirectory the directory to spill messages to, or {@code null}.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getWriteSpillDirectory()
+   */
+  public ChannelFsmConfigBuilder setWriteSpillDirectory(Path writeSpillDirectory) {
+    this.writeSpillDirectory = writeSpillDirectory;
+    return this;
+  }
+
+  /**
+   * Set the size of the file each ChannelFsm maps, the first time it spills a message, when a
+   * {@link #setWriteSpillDirectory(Path) spill directory} is set.
+   *
+   * <p>Each ChannelFsm that has spilled holds a mapping of this size, 64 MiB by default, until
+   * {@link ChannelFsm#disconnect()} discards its queue, or it's garbage collected.
+   *
+   * @param writeSpillSegmentBytes the size, in bytes, of the segment each ChannelFsm spills
+   *     messages to.
+   * @return this {@link ChannelFsmConfigBuilder}.
+   * @see ChannelFsmConfig#getWriteSpillSegmentBytes()
+   */
+  public ChannelFsmConfigBuilder setWriteSpillSegmentBytes(int writeSpillSegmentBytes) {
+    this.writeSpillSegmentBytes = writeSpillSegmentBytes;
+    return this;
+  }
+
   /**
    * @param loggerName the logger name the FSM should use.
    * @return this {@link ChannelFsmConfigBuilder}.
@@ -158,11 +411,17 @@ public class ChannelFsmConfigBuilder {
     if (maxReconnectDelaySeconds < 1) {
       maxReconnectDelaySeconds = DEFAULT_MAX_RECONNECT_DELAY_SECONDS;
     }
+    if (dispatchMode == null) {
+      dispatchMode = DispatchMode.PREDICATE;
+    }
     if (executor == null) {
-      executor = SharedExecutor.INSTANCE;
+      executor = stripedExecutor ? StripedExecutor.shared() : SharedExecutor.INSTANCE;
     }
     if (scheduler == null) {
-      scheduler = SharedScheduler.INSTANCE;
+      scheduler = wheelTimerScheduler ? SharedWheelTimer.INSTANCE : SharedScheduler.INSTANCE;
+    }
+    if (writeOverflowPolicy == null) {
+      writeOverflowPolicy = WriteOverflowPolicy.DROP_OLDEST;
     }
     if (loggerName == null) {
       loggerName = ChannelFsm.class.getName();
@@ -173,9 +432,22 @@ public class ChannelFsmConfigBuilder {
         persistent,
         maxIdleSeconds,
         maxReconnectDelaySeconds,
+        reconnectPolicy,
+        dispatchMode,
         channelActions,
+        connectAdmissionController,
+        Math.max(0L, connectTimeoutMillis),
         executor,
         scheduler,
+        eventLoopGroup,
+        metrics,
+        Math.max(0, transitionHistorySize),
+        Math.max(0, maxPendingWaiters),
+        Math.max(0, maxQueuedWrites),
+        Math.max(0L, maxQueuedWriteBytes),
+        writeOverflowPolicy,
+        writeSpillDirectory,
+        Math.max(0, writeSpillSegmentBytes),
         loggerName,
         loggingContext,
         userContext
@@ -194,9 +466,9 @@ public class ChannelFsmConfigBuilder {
             });
   }
 
-  private static class SharedScheduler {
+  static class SharedScheduler {
 
-    private static final Scheduler INSTANCE =
+    static final Scheduler INSTANCE =
         Scheduler.fromScheduledExecutor(
             Executors.newSingleThreadScheduledExecutor(
                 r -> {
@@ -207,15 +479,43 @@ public class ChannelFsmConfigBuilder {
                 }));
   }
 
+  private static class SharedWheelTimer {
+
+    private static final Scheduler INSTANCE =
+        Scheduler.fromTimer(
+            new HashedWheelTimer(
+                r -> {
+                  Thread t = Executors.defaultThreadFactory().newThread(r);
+                  t.setName("channel-fsm-shared-wheel-timer");
+                  t.setDaemon(true);
+                  return t;
+                },
+                10,
+                TimeUnit.MILLISECONDS));
+  }
+
   private static class ChannelFsmConfigImpl implements ChannelFsmConfig {
 
     private final boolean lazy;
     private final boolean persistent;
     private final int maxIdleSeconds;
     private final int maxReconnectDelaySeconds;
+    private final ReconnectPolicy reconnectPolicy;
+    private final DispatchMode dispatchMode;
     private final ChannelActions channelActions;
+    private final ConnectAdmissionController connectAdmissionController;
+    private final long connectTimeoutMillis;
     private final Executor executor;
     private final Scheduler scheduler;
+    private final EventLoopGroup eventLoopGroup;
+    private final ChannelFsmMetrics metrics;
+    private final int transitionHistorySize;
+    private final int maxPendingWaiters;
+    private final int maxQueuedWrites;
+    private final long maxQueuedWriteBytes;
+    private final WriteOverflowPolicy writeOverflowPolicy;
+    private final Path writeSpillDirectory;
+    private final int writeSpillSegmentBytes;
     private final String loggerName;
     private final Map<String, String> loggingContext;
     private final Object userContext;
@@ -225,9 +525,22 @@ public class ChannelFsmConfigBuilder {
         boolean persistent,
         int maxIdleSeconds,
         int maxReconnectDelaySeconds,
+        ReconnectPolicy reconnectPolicy,
+        DispatchMode dispatchMode,
         ChannelActions channelActions,
+        ConnectAdmissionController connectAdmissionController,
+        long connectTimeoutMillis,
         Executor executor,
         Scheduler scheduler,
+        EventLoopGroup eventLoopGroup,
+        ChannelFsmMetrics metrics,
+        int transitionHistorySize,
+        int maxPendingWaiters,
+        int maxQueuedWrites,
+        long maxQueuedWriteBytes,
+        WriteOverflowPolicy writeOverflowPolicy,
+        Path writeSpillDirectory,
+        int writeSpillSegmentBytes,
         String loggerName,
         Map<String, String> loggingContext,
         Object userContext
@@ -237,9 +550,22 @@ public class ChannelFsmConfigBuilder {
       this.persistent = persistent;
       this.maxIdleSeconds = maxIdleSeconds;
       this.maxReconnectDelaySeconds = maxReconnectDelaySeconds;
+      this.reconnectPolicy = reconnectPolicy;
+      this.dispatchMode = dispatchMode;
       this.channelActions = channelActions;
+      this.connectAdmissionController = connectAdmissionController;
+      this.connectTimeoutMillis = connectTimeoutMillis;
       this.executor = executor;
       this.scheduler = scheduler;
+      this.eventLoopGroup = eventLoopGroup;
+      this.metrics = metrics;
+      this.transitionHistorySize = transitionHistorySize;
+      this.maxPendingWaiters = maxPendingWaiters;
+      this.maxQueuedWrites = maxQueuedWrites;
+      this.maxQueuedWriteBytes = maxQueuedWriteBytes;
+      this.writeOverflowPolicy = writeOverflowPolicy;
+      this.writeSpillDirectory = writeSpillDirectory;
+      this.writeSpillSegmentBytes = writeSpillSegmentBytes;
       this.loggerName = loggerName;
       this.loggingContext = loggingContext;
       this.userContext = userContext;
@@ -265,11 +591,31 @@ public class ChannelFsmConfigBuilder {
       return maxReconnectDelaySeconds;
     }
 
+    @Override
+    public ReconnectPolicy getReconnectPolicy() {
+      return reconnectPolicy;
+    }
+
+    @Override
+    public DispatchMode getDispatchMode() {
+      return dispatchMode;
+    }
+
     @Override
     public ChannelActions getChannelActions() {
       return channelActions;
     }
 
+    @Override
+    public ConnectAdmissionController getConnectAdmissionController() {
+      return connectAdmissionController;
+    }
+
+    @Override
+    public long getConnectTimeoutMillis() {
+      return connectTimeoutMillis;
+    }
+
     @Override
     public Executor getExecutor() {
       return executor;
@@ -280,6 +626,51 @@ public class ChannelFsmConfigBuilder {
       return scheduler;
     }
 
+    @Override
+    public EventLoopGroup getEventLoopGroup() {
+      return eventLoopGroup;
+    }
+
+    @Override
+    public ChannelFsmMetrics getMetrics() {
+      return metrics;
+    }
+
+    @Override
+    public int getTransitionHistorySize() {
+      return transitionHistorySize;
+    }
+
+    @Override
+    public int getMaxPendingWaiters() {
+      return maxPendingWaiters;
+    }
+
+    @Override
+    public int getMaxQueuedWrites() {
+      return maxQueuedWrites;
+    }
+
+    @Override
+    public long getMaxQueuedWriteBytes() {
+      return maxQueuedWriteBytes;
+    }
+
+    @Override
+    public WriteOverflowPolicy getWriteOverflowPolicy() {
+      return writeOverflowPolicy;
+    }
+
+    @Override
+    public Path getWriteSpillDirectory() {
+      return writeSpillDirectory;
+    }
+
+    @Override
+    public int getWriteSpillSegmentBytes() {
+      return writeSpillSegmentBytes;
+    }
+
     @Override
     public String getLoggerName() {
       return loggerName;
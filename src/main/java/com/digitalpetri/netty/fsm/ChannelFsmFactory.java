@@ -10,25 +10,30 @@
 
 package com.digitalpetri.netty.fsm;
 
+import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_CA;
 import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_CF;
 import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_DF;
+import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_FSM;
+import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_RA;
 import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_RD;
 import static com.digitalpetri.netty.fsm.ChannelFsm.KEY_RDF;
-import static com.digitalpetri.netty.fsm.CompletionBuilders.completeAsync;
 
 import com.digitalpetri.fsm.FsmContext;
 import com.digitalpetri.fsm.dsl.ActionContext;
-import com.digitalpetri.fsm.dsl.FsmBuilder;
+import com.digitalpetri.netty.fsm.ChannelFsm.ConnectAttempt;
 import com.digitalpetri.netty.fsm.ChannelFsm.ConnectFuture;
 import com.digitalpetri.netty.fsm.ChannelFsm.DisconnectFuture;
 import com.digitalpetri.netty.fsm.Scheduler.Cancellable;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ConnectTimeoutException;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,9 +42,14 @@ import org.slf4j.MDC;
 public class ChannelFsmFactory {
 
   private final ChannelFsmConfig config;
+  private final TransitionTable transitionTable;
 
   public ChannelFsmFactory(ChannelFsmConfig config) {
     this.config = config;
+
+    var builder = new TransitionTable.Builder();
+    configureChannelFsm(builder, config);
+    this.transitionTable = builder.build(config);
   }
 
   /**
@@ -52,16 +62,11 @@ public class ChannelFsmFactory {
   }
 
   ChannelFsm newChannelFsm(State initialState) {
-    var builder = new FsmBuilder<State, Event>(
-        config.getLoggerName(),
-        config.getLoggingContext(),
-        config.getExecutor(),
-        config.getUserContext()
-    );
-
-    configureChannelFsm(builder, config);
+    return newChannelFsm(initialState, config.getUserContext());
+  }
 
-    return new ChannelFsm(builder, initialState);
+  ChannelFsm newChannelFsm(State initialState, Object userContext) {
+    return new ChannelFsm(config, transitionTable, initialState, userContext);
   }
 
   /**
@@ -74,7 +79,7 @@ public class ChannelFsmFactory {
     return new ChannelFsmFactory(config).newChannelFsm();
   }
 
-  private static void configureChannelFsm(FsmBuilder<State, Event> fb, ChannelFsmConfig config) {
+  static void configureChannelFsm(TransitionTable.Builder fb, ChannelFsmConfig config) {
     configureNotConnectedState(fb, config);
     configureIdleState(fb, config);
     configureConnectingState(fb, config);
@@ -82,10 +87,12 @@ public class ChannelFsmFactory {
     configureDisconnectingState(fb, config);
     configureReconnectWaitState(fb, config);
     configureReconnectingState(fb, config);
+
+    ChannelFsm.configureInstanceActions(fb, config);
   }
 
   private static void configureNotConnectedState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
@@ -98,7 +105,7 @@ public class ChannelFsmFactory {
         .execute(ctx -> {
           Event.Disconnect disconnectEvent = (Event.Disconnect) ctx.event();
 
-          config.getExecutor().execute(() ->
+          executor(ctx).execute(() ->
               disconnectEvent.disconnectFuture.complete(null)
           );
         });
@@ -108,14 +115,14 @@ public class ChannelFsmFactory {
         .execute(ctx -> {
           Event.GetChannel getChannelEvent = (Event.GetChannel) ctx.event();
 
-          config.getExecutor().execute(() ->
+          executor(ctx).execute(() ->
               getChannelEvent.channelFuture
                   .completeExceptionally(new Exception("not connected"))
           );
         });
   }
 
-  private static void configureIdleState(FsmBuilder<State, Event> fb, ChannelFsmConfig config) {
+  private static void configureIdleState(TransitionTable.Builder fb, ChannelFsmConfig config) {
     fb.when(State.Idle)
         .on(Event.Connect.class)
         .transitionTo(State.Reconnecting);
@@ -133,14 +140,14 @@ public class ChannelFsmFactory {
         .via(Event.Disconnect.class)
         .execute(ctx -> {
           Event.Disconnect disconnect = (Event.Disconnect) ctx.event();
-          config.getExecutor().execute(() ->
+          executor(ctx).execute(() ->
               disconnect.disconnectFuture.complete(null)
           );
         });
   }
 
   private static void configureConnectingState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
@@ -164,9 +171,13 @@ public class ChannelFsmFactory {
         .on(Event.ConnectSuccess.class)
         .transitionTo(State.Connected);
 
+    fb.when(State.Connecting)
+        .on(Event.ConnectAborted.class)
+        .transitionTo(State.NotConnected);
+
     fb.onTransitionTo(State.Connecting)
         .from(s -> s != State.Connecting)
-        .via(e -> e.getClass() == Event.Connect.class)
+        .via(Event.Connect.class)
         .execute(ctx -> {
           ConnectFuture cf = new ConnectFuture();
           KEY_CF.set(ctx, cf);
@@ -186,7 +197,7 @@ public class ChannelFsmFactory {
 
     fb.onInternalTransition(State.Connecting)
         .via(Event.Disconnect.class)
-        .execute(ctx -> ctx.shelveEvent(ctx.event()));
+        .execute(ctx -> handleDisconnectWhileConnecting(ctx, config));
 
     fb.onTransitionFrom(State.Connecting)
         .to(s -> s != State.Connecting)
@@ -197,10 +208,15 @@ public class ChannelFsmFactory {
         .to(s -> s != State.Connecting)
         .via(Event.ConnectFailure.class)
         .execute(ctx -> handleConnectFailureEvent(ctx, config));
+
+    fb.onTransitionFrom(State.Connecting)
+        .to(State.NotConnected)
+        .via(Event.ConnectAborted.class)
+        .execute(ctx -> handleConnectAbortedEvent(ctx, config));
   }
 
   private static void configureConnectedState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
@@ -212,15 +228,11 @@ public class ChannelFsmFactory {
 
     if (config.isLazy()) {
       fb.when(State.Connected)
-          .on(e ->
-              e.getClass() == Event.ChannelInactive.class
-                  || e.getClass() == Event.KeepAliveFailure.class)
+          .on(Event.ChannelInactive.class, Event.KeepAliveFailure.class)
           .transitionTo(State.Idle);
     } else {
       fb.when(State.Connected)
-          .on(e ->
-              e.getClass() == Event.ChannelInactive.class
-                  || e.getClass() == Event.KeepAliveFailure.class)
+          .on(Event.ChannelInactive.class, Event.KeepAliveFailure.class)
           .transitionTo(State.ReconnectWait);
     }
 
@@ -254,7 +266,7 @@ public class ChannelFsmFactory {
               }
 
               if (ctx.currentState() == State.Connected) {
-                ctx.fireEvent(new Event.ChannelInactive());
+                ctx.fireEvent(Event.ChannelInactive.INSTANCE);
               }
 
               super.channelInactive(channelContext);
@@ -300,7 +312,7 @@ public class ChannelFsmFactory {
                     config.getLoggingContext().keySet().forEach(MDC::remove);
                   }
 
-                  ctx.fireEvent(new Event.ChannelIdle());
+                  ctx.fireEvent(Event.ChannelIdle.INSTANCE);
                 }
               }
 
@@ -310,7 +322,7 @@ public class ChannelFsmFactory {
 
           ConnectFuture cf = KEY_CF.get(ctx);
           if (cf != null) {
-            config.getExecutor().execute(() -> cf.future.complete(channel));
+            executor(ctx).execute(() -> cf.future.complete(channel));
           }
         });
 
@@ -325,18 +337,24 @@ public class ChannelFsmFactory {
     fb.onInternalTransition(State.Connected)
         .via(Event.ChannelIdle.class)
         .execute(ctx -> {
-          ConnectFuture cf = KEY_CF.get(ctx);
+          // The Channel is published as soon as the FSM is Connected, no need to
+          // wait on the ConnectFuture for it.
+          Channel channel = KEY_FSM.get(ctx).getChannelNow();
+
+          executor(ctx).execute(() -> {
+            Object keepAliveEvent = JfrEvents.beginKeepAlive(KEY_FSM.get(ctx).getId());
 
-          cf.future.thenAcceptAsync(ch -> {
             CompletableFuture<Void> keepAliveFuture =
-                config.getChannelActions().keepAlive(ctx, ch);
+                config.getChannelActions().keepAlive(ctx, channel);
 
             keepAliveFuture.whenComplete((v, ex) -> {
+              JfrEvents.endKeepAlive(keepAliveEvent, ex);
+
               if (ex != null) {
                 ctx.fireEvent(new Event.KeepAliveFailure(ex));
               }
             });
-          }, config.getExecutor());
+          });
         });
 
     fb.onTransitionFrom(State.Connected)
@@ -350,7 +368,7 @@ public class ChannelFsmFactory {
   }
 
   private static void configureDisconnectingState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
@@ -367,13 +385,13 @@ public class ChannelFsmFactory {
 
           Event.Disconnect event = (Event.Disconnect) ctx.event();
 
-          completeAsync(event.disconnectFuture, config.getExecutor()).with(df.future);
+          df.addWaiter(event.disconnectFuture, executor(ctx));
 
           disconnect(ctx, config);
         });
 
     fb.onInternalTransition(State.Disconnecting)
-        .via(e -> e.getClass() == Event.Connect.class || e.getClass() == Event.GetChannel.class)
+        .via(Event.Connect.class, Event.GetChannel.class)
         .execute(ctx -> ctx.shelveEvent(ctx.event()));
 
     fb.onInternalTransition(State.Disconnecting)
@@ -384,7 +402,7 @@ public class ChannelFsmFactory {
           if (df != null) {
             Event.Disconnect event = (Event.Disconnect) ctx.event();
 
-            completeAsync(event.disconnectFuture, config.getExecutor()).with(df.future);
+            df.addWaiter(event.disconnectFuture, executor(ctx));
           }
         });
 
@@ -395,7 +413,7 @@ public class ChannelFsmFactory {
           DisconnectFuture df = KEY_DF.remove(ctx);
 
           if (df != null) {
-            config.getExecutor().execute(() -> df.future.complete(null));
+            executor(ctx).execute(() -> df.future.complete(null));
           }
         });
 
@@ -406,10 +424,14 @@ public class ChannelFsmFactory {
   }
 
   private static void configureReconnectWaitState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
+    ReconnectPolicy reconnectPolicy = config.getReconnectPolicy() != null
+        ? config.getReconnectPolicy()
+        : ReconnectPolicy.exponential(1000L, getMaxReconnectDelay(config) * 1000L);
+
     fb.when(State.ReconnectWait)
         .on(Event.ReconnectDelayElapsed.class)
         .transitionTo(State.Reconnecting);
@@ -431,19 +453,23 @@ public class ChannelFsmFactory {
         .execute(ctx -> {
           KEY_CF.set(ctx, new ConnectFuture());
 
-          Long delay = KEY_RD.get(ctx);
-          if (delay == null) {
-            delay = 1L;
-          } else {
-            delay = Math.min(getMaxReconnectDelay(config), delay << 1);
-          }
+          Integer previousAttempt = KEY_RA.get(ctx);
+          int attempt = previousAttempt == null ? 1 : previousAttempt + 1;
+          KEY_RA.set(ctx, attempt);
+
+          Long previousDelay = KEY_RD.get(ctx);
+          long delay = Math.max(0L, reconnectPolicy.getReconnectDelayMillis(
+              attempt,
+              previousDelay == null ? 0L : previousDelay,
+              getFailureCause(ctx.event())
+          ));
           KEY_RD.set(ctx, delay);
 
-          Cancellable reconnectDelayFuture = config.getScheduler().schedule(
+          Cancellable reconnectDelayFuture = KEY_FSM.get(ctx).getScheduler().schedule(
               () ->
-                  ctx.fireEvent(new Event.ReconnectDelayElapsed()),
+                  ctx.fireEvent(Event.ReconnectDelayElapsed.INSTANCE),
               delay,
-              TimeUnit.SECONDS
+              TimeUnit.MILLISECONDS
           );
 
           KEY_RDF.set(ctx, reconnectDelayFuture);
@@ -461,7 +487,7 @@ public class ChannelFsmFactory {
           if (event.waitForReconnect) {
             handleGetChannelEvent(ctx, config);
           } else {
-            config.getExecutor().execute(() ->
+            executor(ctx).execute(() ->
                 event.channelFuture
                     .completeExceptionally(new Exception("not reconnected"))
             );
@@ -474,13 +500,14 @@ public class ChannelFsmFactory {
         .execute(ctx -> {
           ConnectFuture connectFuture = KEY_CF.remove(ctx);
           if (connectFuture != null) {
-            config.getExecutor().execute(() ->
+            executor(ctx).execute(() ->
                 connectFuture.future
                     .completeExceptionally(new Exception("client disconnected"))
             );
           }
 
           KEY_RD.remove(ctx);
+          KEY_RA.remove(ctx);
 
           Cancellable reconnectDelayCancellable = KEY_RDF.remove(ctx);
           if (reconnectDelayCancellable != null) {
@@ -488,14 +515,14 @@ public class ChannelFsmFactory {
           }
 
           Event.Disconnect disconnect = (Event.Disconnect) ctx.event();
-          config.getExecutor().execute(() ->
+          executor(ctx).execute(() ->
               disconnect.disconnectFuture.complete(null)
           );
         });
   }
 
   private static void configureReconnectingState(
-      FsmBuilder<State, Event> fb,
+      TransitionTable.Builder fb,
       ChannelFsmConfig config
   ) {
 
@@ -507,6 +534,10 @@ public class ChannelFsmFactory {
         .on(Event.ConnectSuccess.class)
         .transitionTo(State.Connected);
 
+    fb.when(State.Reconnecting)
+        .on(Event.ConnectAborted.class)
+        .transitionTo(State.NotConnected);
+
     fb.onTransitionTo(State.Reconnecting)
         .from(State.ReconnectWait)
         .via(Event.ReconnectDelayElapsed.class)
@@ -514,7 +545,7 @@ public class ChannelFsmFactory {
 
     fb.onTransitionTo(State.Reconnecting)
         .from(State.Idle)
-        .via(e -> e.getClass() == Event.Connect.class || e.getClass() == Event.GetChannel.class)
+        .via(Event.Connect.class, Event.GetChannel.class)
         .execute(ctx -> {
           ConnectFuture cf = new ConnectFuture();
           KEY_CF.set(ctx, cf);
@@ -540,7 +571,7 @@ public class ChannelFsmFactory {
 
     fb.onInternalTransition(State.Reconnecting)
         .via(Event.Disconnect.class)
-        .execute(ctx -> ctx.shelveEvent(ctx.event()));
+        .execute(ctx -> handleDisconnectWhileConnecting(ctx, config));
 
     fb.onTransitionFrom(State.Reconnecting)
         .to(s -> s != State.Reconnecting)
@@ -552,8 +583,14 @@ public class ChannelFsmFactory {
         .via(Event.ConnectSuccess.class)
         .execute(ctx -> {
           KEY_RD.remove(ctx);
+          KEY_RA.remove(ctx);
           KEY_RDF.remove(ctx);
         });
+
+    fb.onTransitionFrom(State.Reconnecting)
+        .to(State.NotConnected)
+        .via(Event.ConnectAborted.class)
+        .execute(ctx -> handleConnectAbortedEvent(ctx, config));
   }
 
   private static void connect(
@@ -561,15 +598,112 @@ public class ChannelFsmFactory {
       ChannelFsmConfig config
   ) {
 
-    config.getExecutor().execute(() ->
-        config.getChannelActions().connect(ctx).whenComplete((channel, ex) -> {
-          if (channel != null) {
-            ctx.fireEvent(new Event.ConnectSuccess(channel));
-          } else {
-            ctx.fireEvent(new Event.ConnectFailure(ex));
-          }
-        })
-    );
+    ConnectAttempt attempt = new ConnectAttempt();
+    KEY_CA.set(ctx, attempt);
+
+    ConnectAdmissionController admissionController = config.getConnectAdmissionController();
+
+    if (admissionController == null) {
+      executor(ctx).execute(() -> connect(ctx, config, attempt, null));
+    } else {
+      CompletableFuture<ConnectAdmissionController.Permit> admission =
+          admissionController.acquire();
+
+      // Stop waiting for a permit, rather than take one only to release it, if cancelled first.
+      attempt.onCancelled(() -> admission.cancel(false), executor(ctx));
+
+      admission
+          .thenAcceptAsync(permit -> connect(ctx, config, attempt, permit), executor(ctx))
+          .whenComplete((v, ex) -> {
+            if (ex != null && !admission.isCompletedExceptionally()) {
+              // Admitted, but connect() never ran, e.g. the Executor rejected it.
+              admission.join().release();
+            }
+          });
+    }
+  }
+
+  private static void connect(
+      ActionContext<State, Event> ctx,
+      ChannelFsmConfig config,
+      ConnectAttempt attempt,
+      ConnectAdmissionController.Permit permit
+  ) {
+
+    if (attempt.isCancelled()) {
+      // Cancelled before it started, e.g. while waiting for a permit.
+      if (permit != null) {
+        permit.release();
+      }
+      return;
+    }
+
+    ChannelFsm channelFsm = KEY_FSM.get(ctx);
+    ChannelFsmMetrics metrics = config.getMetrics();
+    long startNanos = channelFsm.startConnectAttempt();
+    Object connectEvent = JfrEvents.beginConnect(channelFsm.getId());
+
+    long connectTimeoutMillis = config.getConnectTimeoutMillis();
+
+    Cancellable timeout = connectTimeoutMillis > 0L
+        ? channelFsm.getScheduler().schedule(
+            () -> executor(ctx).execute(() -> {
+              var cause = new ConnectTimeoutException(
+                  "connect timed out after " + connectTimeoutMillis + "ms");
+
+              if (attempt.cancel(cause, executor(ctx))) {
+                if (metrics != null) {
+                  channelFsm.recordConnectAttempt(metrics, startNanos, false);
+                }
+                ctx.fireEvent(new Event.ConnectFailure(cause));
+              }
+            }),
+            connectTimeoutMillis,
+            TimeUnit.MILLISECONDS
+        )
+        : null;
+
+    // The attempt is over as far as the FSM is concerned once cancelled, whether or not its
+    // result ever arrives.
+    attempt.onCancelled(() -> {
+      if (timeout != null) {
+        timeout.cancel();
+      }
+      if (permit != null) {
+        permit.release();
+      }
+      JfrEvents.endConnect(connectEvent, attempt.getCancelCause());
+    }, executor(ctx));
+
+    config.getChannelActions().connect(ctx).whenComplete((channel, ex) -> {
+      if (!attempt.complete()) {
+        // Cancelled by a Disconnect or the connect timeout; a ConnectAborted or ConnectFailure
+        // was fired in place of this result.
+        if (channel != null) {
+          channel.close();
+        }
+        return;
+      }
+
+      if (timeout != null) {
+        timeout.cancel();
+      }
+      if (permit != null) {
+        permit.release();
+      }
+
+      JfrEvents.endConnect(connectEvent, ex);
+
+      if (metrics != null) {
+        channelFsm.recordConnectAttempt(metrics, startNanos, channel != null);
+      }
+
+      if (channel != null) {
+        ctx.fireEvent(new Event.ConnectSuccess(channel));
+      } else {
+        ctx.fireEvent(new Event.ConnectFailure(ex));
+      }
+    });
   }
 
   private static void disconnect(
@@ -580,17 +714,17 @@ public class ChannelFsmFactory {
     ConnectFuture connectFuture = KEY_CF.get(ctx);
 
     if (connectFuture != null && connectFuture.future.isDone()) {
-      config.getExecutor().execute(() -> {
+      executor(ctx).execute(() -> {
         CompletableFuture<Void> disconnectFuture = config.getChannelActions().disconnect(
             ctx,
             connectFuture.future.getNow(null)
         );
 
         disconnectFuture.whenComplete(
-            (v, ex) -> ctx.fireEvent(new Event.DisconnectSuccess()));
+            (v, ex) -> ctx.fireEvent(Event.DisconnectSuccess.INSTANCE));
       });
     } else {
-      ctx.fireEvent(new Event.DisconnectSuccess());
+      ctx.fireEvent(Event.DisconnectSuccess.INSTANCE);
     }
   }
 
@@ -599,10 +733,12 @@ public class ChannelFsmFactory {
       ChannelFsmConfig config
   ) {
 
-    CompletableFuture<Channel> channelFuture = KEY_CF.get(ctx).future;
-
     Event.Connect connectEvent = (Event.Connect) ctx.event();
-    completeAsync(connectEvent.channelFuture, config.getExecutor()).with(channelFuture);
+    KEY_CF.get(ctx).addWaiter(connectEvent.channelFuture, executor(ctx));
+
+    if (connectEvent.counted) {
+      KEY_FSM.get(ctx).connectProcessed();
+    }
   }
 
   private static void handleGetChannelEvent(
@@ -610,10 +746,48 @@ public class ChannelFsmFactory {
       ChannelFsmConfig config
   ) {
 
-    CompletableFuture<Channel> channelFuture = KEY_CF.get(ctx).future;
-
     Event.GetChannel getChannelEvent = (Event.GetChannel) ctx.event();
-    completeAsync(getChannelEvent.channelFuture, config.getExecutor()).with(channelFuture);
+    KEY_CF.get(ctx).addWaiter(getChannelEvent.channelFuture, executor(ctx));
+  }
+
+  /**
+   * Shelve a Disconnect received while a connect attempt is in progress, and cancel the attempt
+   * so the Disconnect doesn't have to wait for it.
+   *
+   * <p>If the attempt is cancelled a ConnectAborted is fired in its place, moving the FSM to
+   * NotConnected. Otherwise its result is already on the way.
+   */
+  private static void handleDisconnectWhileConnecting(
+      ActionContext<State, Event> ctx,
+      ChannelFsmConfig config
+  ) {
+
+    ctx.shelveEvent(ctx.event());
+
+    ConnectAttempt attempt = KEY_CA.get(ctx);
+    var cause = new CancellationException("connect cancelled");
+
+    if (attempt != null && attempt.cancel(cause, executor(ctx))) {
+      ctx.fireEvent(Event.ConnectAborted.INSTANCE);
+    }
+  }
+
+  private static void handleConnectAbortedEvent(
+      ActionContext<State, Event> ctx,
+      ChannelFsmConfig config
+  ) {
+
+    ConnectFuture cf = KEY_CF.remove(ctx);
+
+    if (cf != null) {
+      executor(ctx).execute(() ->
+          cf.future.completeExceptionally(new Exception("client disconnected"))
+      );
+    }
+
+    KEY_RD.remove(ctx);
+    KEY_RA.remove(ctx);
+    KEY_RDF.remove(ctx);
   }
 
   private static void handleConnectFailureEvent(
@@ -626,12 +800,38 @@ public class ChannelFsmFactory {
     if (cf != null) {
       Event.ConnectFailure connectFailureEvent = (Event.ConnectFailure) ctx.event();
 
-      config.getExecutor().execute(() ->
+      executor(ctx).execute(() ->
           cf.future.completeExceptionally(connectFailureEvent.failure)
       );
     }
   }
 
+  /**
+   * Get the {@link Executor} of the {@link ChannelFsm} that {@code ctx} belongs to.
+   *
+   * @param ctx the {@link FsmContext} of a {@link ChannelFsm}.
+   * @return the {@link Executor} of the {@link ChannelFsm} that {@code ctx} belongs to.
+   */
+  private static Executor executor(FsmContext<State, Event> ctx) {
+    return KEY_FSM.get(ctx).getExecutor();
+  }
+
+  /**
+   * Get the failure cause carried by {@code event}, if any.
+   *
+   * @param event the {@link Event} that caused a transition to {@link State#ReconnectWait}.
+   * @return the failure cause carried by {@code event}, or {@code null} if it carries none.
+   */
+  private static Throwable getFailureCause(Event event) {
+    if (event instanceof Event.ConnectFailure) {
+      return ((Event.ConnectFailure) event).failure;
+    } else if (event instanceof Event.KeepAliveFailure) {
+      return ((Event.KeepAliveFailure) event).failure;
+    } else {
+      return null;
+    }
+  }
+
   private static int getMaxReconnectDelay(ChannelFsmConfig config) {
     int maxReconnectDelay = config.getMaxReconnectDelaySeconds();
 
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.netty.fsm.ChannelFsm.TransitionListener;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A group of many {@link ChannelFsm}s that share one {@link ChannelFsmConfig}, and with it one
+ * transition table, one set of {@link ChannelActions}, and the same executor and scheduler.
+ *
+ * <p>Each member has its own user context, which is how {@link ChannelActions} tell members
+ * apart, e.g. to look up the address to connect to.
+ *
+ * <p>The group keeps a count of members in each {@link State}, updated as members transition,
+ * so reading the counts doesn't iterate the members.
+ *
+ * @see #newConfigBuilder()
+ */
+public class ChannelFsmGroup {
+
+  private final Map<ChannelFsm, Member> members = new ConcurrentHashMap<>();
+
+  private final LongAdder[] stateCounts = new LongAdder[State.values().length];
+
+  private final ChannelFsmFactory factory;
+
+  /**
+   * Create a {@link ChannelFsmGroup} whose members are configured by {@code config}.
+   *
+   * @param config the {@link ChannelFsmConfig} shared by every member of the group.
+   */
+  public ChannelFsmGroup(ChannelFsmConfig config) {
+    this.factory = new ChannelFsmFactory(config);
+
+    for (int i = 0; i < stateCounts.length; i++) {
+      stateCounts[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Create a new {@link ChannelFsm} with {@code userContext} and add it to the group.
+   *
+   * <p>The new member is not connected.
+   *
+   * @param userContext the user context of the new member.
+   * @return the new {@link ChannelFsm}.
+   * @see com.digitalpetri.fsm.FsmContext#getUserContext()
+   */
+  public ChannelFsm add(Object userContext) {
+    ChannelFsm fsm = factory.newChannelFsm(State.NotConnected, userContext);
+
+    Member member = new Member(State.NotConnected);
+    stateCounts[State.NotConnected.ordinal()].increment();
+
+    members.put(fsm, member);
+    fsm.addTransitionListener(member);
+
+    return fsm;
+  }
+
+  /**
+   * Disconnect {@code fsm} and remove it from the group.
+   *
+   * @param fsm the {@link ChannelFsm} to remove.
+   * @return a {@link CompletableFuture} that completes when {@code fsm} has disconnected, or
+   *     immediately if it wasn't a member of the group.
+   */
+  public CompletableFuture<Void> remove(ChannelFsm fsm) {
+    Member member = members.remove(fsm);
+
+    if (member == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    fsm.removeTransitionListener(member);
+    member.remove();
+
+    return fsm.disconnect();
+  }
+
+  /**
+   * @return the number of members in the group.
+   */
+  public int size() {
+    return members.size();
+  }
+
+  /**
+   * Get the number of members currently in {@code state}.
+   *
+   * @param state the {@link State}.
+   * @return the number of members currently in {@code state}.
+   */
+  public long getCount(State state) {
+    return stateCounts[state.ordinal()].sum();
+  }
+
+  /**
+   * @return the number of members currently in each {@link State}.
+   */
+  public Map<State, Long> getStateCounts() {
+    Map<State, Long> counts = new EnumMap<>(State.class);
+    for (State state : State.values()) {
+      counts.put(state, getCount(state));
+    }
+    return counts;
+  }
+
+  /**
+   * Connect every member of the group, with at most {@code parallelism} connect attempts
+   * outstanding at a time.
+   *
+   * @param parallelism the maximum number of connect attempts outstanding at a time.
+   * @return a {@link CompletableFuture} that completes when every member's connect attempt has
+   *     completed, successfully or not.
+   */
+  public CompletableFuture<Void> connectAll(int parallelism) {
+    return forEachMember(parallelism, ChannelFsm::connect);
+  }
+
+  /**
+   * Disconnect every member of the group, with at most {@code parallelism} disconnects
+   * outstanding at a time. Members remain in the group.
+   *
+   * @param parallelism the maximum number of disconnects outstanding at a time.
+   * @return a {@link CompletableFuture} that completes when every member has disconnected.
+   */
+  public CompletableFuture<Void> disconnectAll(int parallelism) {
+    return forEachMember(parallelism, ChannelFsm::disconnect);
+  }
+
+  private CompletableFuture<Void> forEachMember(
+      int parallelism,
+      Function<ChannelFsm, CompletableFuture<?>> action
+  ) {
+
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1");
+    }
+
+    List<ChannelFsm> fsms = new ArrayList<>(members.keySet());
+
+    if (fsms.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    var bulk = new BulkOperation(fsms.iterator(), action);
+
+    int workers = Math.min(parallelism, fsms.size());
+    bulk.remaining.set(workers);
+    for (int i = 0; i < workers; i++) {
+      bulk.next();
+    }
+
+    return bulk.future;
+  }
+
+  /**
+   * Create a {@link ChannelFsmConfigBuilder} suited to a large group: the FSMs run on the shared
+   * {@link StripedExecutor} and schedule on the shared wheel timer.
+   *
+   * @return a new {@link ChannelFsmConfigBuilder}.
+   */
+  public static ChannelFsmConfigBuilder newConfigBuilder() {
+    return ChannelFsmConfig.newBuilder()
+        .setStripedExecutor(true)
+        .setWheelTimerScheduler(true);
+  }
+
+  /**
+   * Applies an action to each member, keeping a fixed number of "workers" that each start the
+   * next member's action once their previous one completes.
+   */
+  private static class BulkOperation {
+
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    final AtomicInteger remaining = new AtomicInteger(0);
+
+    private final Iterator<ChannelFsm> iterator;
+    private final Function<ChannelFsm, CompletableFuture<?>> action;
+
+    BulkOperation(
+        Iterator<ChannelFsm> iterator,
+        Function<ChannelFsm, CompletableFuture<?>> action
+    ) {
+
+      this.iterator = iterator;
+      this.action = action;
+    }
+
+    void next() {
+      while (true) {
+        ChannelFsm fsm;
+
+        synchronized (iterator) {
+          fsm = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        if (fsm == null) {
+          if (remaining.decrementAndGet() == 0) {
+            future.complete(null);
+          }
+          return;
+        }
+
+        CompletableFuture<?> f = action.apply(fsm);
+
+        // Loop rather than recurse when the action is already done, e.g. connect() on a
+        // member that is already Connected.
+        if (!f.isDone()) {
+          f.whenComplete((v, ex) -> next());
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Keeps the group's state counts up to date for one member.
+   */
+  private class Member implements TransitionListener {
+
+    private State state;
+    private boolean removed = false;
+
+    Member(State state) {
+      this.state = state;
+    }
+
+    @Override
+    public synchronized void onStateTransition(State from, State to, Event via) {
+      if (!removed && to != state) {
+        stateCounts[state.ordinal()].decrement();
+        stateCounts[to.ordinal()].increment();
+        state = to;
+      }
+    }
+
+    synchronized void remove() {
+      if (!removed) {
+        removed = true;
+        stateCounts[state.ordinal()].decrement();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+/**
+ * Receives metrics from every ChannelFsm created from a {@link ChannelFsmConfig}.
+ *
+ * <p>Methods are called from the ChannelFsm's transition actions, so implementations must be
+ * thread safe, must not block, and should not allocate if they are to stay enabled in
+ * production. {@link TransitionMetrics} is an implementation that keeps the metrics in memory,
+ * to be read by, or adapted to, a metrics library.
+ *
+ * @see ChannelFsmConfigBuilder#setMetrics(ChannelFsmMetrics)
+ */
+public interface ChannelFsmMetrics {
+
+  /**
+   * A ChannelFsm transitioned from {@code from} to {@code to}.
+   *
+   * <p>Called for internal transitions, where {@code from} and {@code to} are the same, as well.
+   *
+   * @param from the {@link State} transitioned from.
+   * @param to the {@link State} transitioned to.
+   * @param eventType the type of the {@link Event} that caused the transition.
+   */
+  void recordTransition(State from, State to, Class<? extends Event> eventType);
+
+  /**
+   * A ChannelFsm left {@code state} after spending {@code dwellNanos} in it.
+   *
+   * @param state the {@link State} that was left.
+   * @param dwellNanos the time, in nanoseconds, spent in {@code state}.
+   */
+  void recordDwell(State state, long dwellNanos);
+
+  /**
+   * A {@link ChannelActions#connect} call completed after {@code durationNanos}.
+   *
+   * @param durationNanos the time, in nanoseconds, from the call to the completion of the
+   *     future it returned.
+   * @param success {@code true} if the future completed with a Channel.
+   */
+  default void recordConnect(long durationNanos, boolean success) {}
+
+  /**
+   * A {@link ConnectPhase} of a {@link ChannelActions#connect} call took {@code durationNanos}.
+   *
+   * <p>Only called for phases the {@link ChannelActions} implementation reported, once the
+   * connect call has completed.
+   *
+   * @param phase the {@link ConnectPhase}.
+   * @param durationNanos the time, in nanoseconds, from the end of the previous reported phase,
+   *     or from the start of the connect call, to the end of {@code phase}.
+   * @see ChannelFsm#recordConnectPhase(com.digitalpetri.fsm.FsmContext, ConnectPhase)
+   */
+  default void recordConnectPhase(ConnectPhase phase, long durationNanos) {}
+
+  /**
+   * A message passed to {@link ChannelFsm#write(Object)} was spilled to disk, taking
+   * {@code durationNanos} to copy.
+   *
+   * <p>Called from the thread that called {@code write}.
+   *
+   * @param bytes the size, in bytes, of the message.
+   * @param durationNanos the time, in nanoseconds, spent copying the message.
+   * @see ChannelFsmConfig#getWriteSpillDirectory()
+   */
+  default void recordWriteSpill(int bytes, long durationNanos) {}
+
+  /**
+   * The messages spilled while a ChannelFsm wasn't connected were replayed to its Channel,
+   * taking {@code durationNanos}.
+   *
+   * <p>Called from the Channel's event loop.
+   *
+   * @param bytes the total size, in bytes, of the messages replayed.
+   * @param durationNanos the time, in nanoseconds, from the first write until the last had
+   *     completed.
+   * @see ChannelFsmConfig#getWriteSpillDirectory()
+   */
+  default void recordWriteReplay(long bytes, long durationNanos) {}
+
+}
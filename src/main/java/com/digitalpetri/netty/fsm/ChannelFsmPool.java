@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.netty.fsm.Scheduler.Cancellable;
+import io.netty.channel.Channel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of {@link ChannelFsm}s, all created by the same {@link ChannelFsmFactory}, that
+ * spreads load over several Channels to the same endpoint.
+ *
+ * <p>{@link #getChannel()} picks one of the Connected members using the configured
+ * {@link SelectionStrategy}, preferring members whose Channel is writable; members that are
+ * connecting or reconnecting are skipped.
+ *
+ * <p>The pool starts with {@code minSize} members. It grows, up to {@code maxSize}, when every
+ * member is Connected and none of their Channels is writable. It shrinks, one member at a time
+ * and never below {@code minSize}, when every {@link #getChannel()} call for {@code idleTimeout}
+ * found at least two writable members, i.e. one fewer would still have left a writable one.
+ */
+public class ChannelFsmPool {
+
+  private static final Member[] NO_MEMBERS = new Member[0];
+
+  /**
+   * Replaced, never modified, holding this lock, so {@link #getChannel()} can iterate it
+   * without locking or allocating.
+   */
+  private volatile Member[] members = NO_MEMBERS;
+
+  private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+  /**
+   * The fewest writable members a {@link #getChannel()} call found since the last shrink check.
+   */
+  private final AtomicInteger minWritable = new AtomicInteger(Integer.MAX_VALUE);
+
+  private final ChannelFsmFactory factory;
+  private final int minSize;
+  private final int maxSize;
+  private final SelectionStrategy selectionStrategy;
+  private final Duration idleTimeout;
+  private final Scheduler scheduler;
+
+  private Cancellable shrinkCancellable;
+  private boolean closed = false;
+
+  private ChannelFsmPool(
+      ChannelFsmFactory factory,
+      int minSize,
+      int maxSize,
+      SelectionStrategy selectionStrategy,
+      Duration idleTimeout,
+      Scheduler scheduler
+  ) {
+
+    this.factory = factory;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.selectionStrategy = selectionStrategy;
+    this.idleTimeout = idleTimeout;
+    this.scheduler = scheduler;
+
+    synchronized (this) {
+      for (int i = 0; i < minSize; i++) {
+        addMember();
+      }
+    }
+
+    if (maxSize > minSize) {
+      scheduleShrink();
+    }
+  }
+
+  /**
+   * Get a Channel from a Connected member of the pool.
+   *
+   * <p>If every member is Connected but none is writable the pool grows by one member, if it
+   * can. If no member is Connected the returned future completes with the Channel of a member
+   * once it has connected.
+   *
+   * @return a {@link CompletableFuture} that completes with a Channel from a member of the pool.
+   */
+  public CompletableFuture<Channel> getChannel() {
+    Member[] snapshot = members;
+    int size = snapshot.length;
+
+    if (size == 0) {
+      return CompletableFuture.failedFuture(new Exception("pool closed"));
+    }
+
+    int start = Math.floorMod(nextIndex.getAndIncrement(), size);
+
+    int connectedCount = 0;
+    int writableCount = 0;
+    Member firstConnected = null;
+    Member firstWritable = null;
+    Member mostCapacity = null;
+    int mostCapacityIndex = size;
+    long mostCapacityBytes = -1L;
+
+    // One pass, starting at the next round robin position, gathers what every strategy needs.
+    for (int i = 0; i < size; i++) {
+      int index = (start + i) % size;
+      Member member = snapshot[index];
+      Channel channel = member.fsm.getChannelNow();
+
+      if (channel != null) {
+        connectedCount++;
+        if (firstConnected == null) {
+          firstConnected = member;
+        }
+        if (channel.isWritable()) {
+          writableCount++;
+          if (firstWritable == null) {
+            firstWritable = member;
+          }
+        }
+
+        // bytesBeforeUnwritable() is 0 for an unwritable Channel; ties go to the lowest index.
+        long capacity = channel.bytesBeforeUnwritable();
+        if (capacity > mostCapacityBytes
+            || capacity == mostCapacityBytes && index < mostCapacityIndex) {
+
+          mostCapacity = member;
+          mostCapacityIndex = index;
+          mostCapacityBytes = capacity;
+        }
+      }
+    }
+
+    recordWritable(writableCount);
+
+    if (writableCount == 0 && connectedCount == size) {
+      // Every member is Connected and saturated; add one, used once it has connected.
+      synchronized (this) {
+        if (!closed && members.length < maxSize) {
+          addMember();
+        }
+      }
+    }
+
+    if (connectedCount == 0) {
+      return snapshot[start].fsm.getChannel();
+    }
+
+    Member member;
+    switch (selectionStrategy) {
+      case LEAST_PENDING_WRITES:
+        member = mostCapacity;
+        break;
+
+      case POWER_OF_TWO_CHOICES:
+        member = size > 1 ? choose(snapshot, firstConnected) : firstConnected;
+        break;
+
+      case ROUND_ROBIN:
+      default:
+        member = firstWritable != null ? firstWritable : firstConnected;
+        break;
+    }
+
+    Channel channel = member.fsm.getChannelNow();
+    if (channel != null) {
+      return CompletableFuture.completedFuture(channel);
+    } else {
+      // Disconnected since it was selected.
+      return member.fsm.getChannel();
+    }
+  }
+
+  /**
+   * @return the number of members in the pool.
+   */
+  public int size() {
+    return members.length;
+  }
+
+  /**
+   * @return the number of Connected members in the pool.
+   */
+  public int getConnectedCount() {
+    int count = 0;
+    for (Member member : members) {
+      if (member.fsm.getChannelNow() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Disconnect and remove every member of the pool. No members are added after the pool has been
+   * closed.
+   *
+   * @return a {@link CompletableFuture} that completes when every member has disconnected.
+   */
+  public CompletableFuture<Void> close() {
+    Member[] removed;
+
+    synchronized (this) {
+      closed = true;
+
+      if (shrinkCancellable != null) {
+        shrinkCancellable.cancel();
+      }
+
+      removed = members;
+      members = NO_MEMBERS;
+    }
+
+    return CompletableFuture.allOf(
+        Arrays.stream(removed)
+            .map(member -> member.fsm.disconnect())
+            .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  /**
+   * Pick the member with more write capacity out of two distinct members picked at random, or
+   * {@code fallback} if neither is Connected.
+   */
+  private static Member choose(Member[] snapshot, Member fallback) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int i = random.nextInt(snapshot.length);
+    int j = random.nextInt(snapshot.length - 1);
+    if (j >= i) {
+      j++;
+    }
+
+    Channel a = snapshot[i].fsm.getChannelNow();
+    Channel b = snapshot[j].fsm.getChannelNow();
+
+    if (a == null && b == null) {
+      return fallback;
+    } else if (b == null) {
+      return snapshot[i];
+    } else if (a == null) {
+      return snapshot[j];
+    } else {
+      return a.bytesBeforeUnwritable() >= b.bytesBeforeUnwritable() ? snapshot[i] : snapshot[j];
+    }
+  }
+
+  private void recordWritable(int writableCount) {
+    int min;
+    while (writableCount < (min = minWritable.get())
+        && !minWritable.compareAndSet(min, writableCount)) {
+      // Lost a race with another caller; retry against its value.
+    }
+  }
+
+  /**
+   * Must be called holding this lock.
+   */
+  private void addMember() {
+    Member member = new Member(factory.newChannelFsm());
+    Member[] grown = Arrays.copyOf(members, members.length + 1);
+    grown[grown.length - 1] = member;
+    members = grown;
+    member.fsm.connect();
+  }
+
+  private synchronized void scheduleShrink() {
+    if (!closed) {
+      shrinkCancellable = scheduler.schedule(
+          this::shrink,
+          Math.max(1L, idleTimeout.toMillis()),
+          TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  /**
+   * Remove the most recently added member beyond {@code minSize} if every
+   * {@link #getChannel()} call since the last check, if any, found a spare writable member.
+   */
+  private void shrink() {
+    Member removed = null;
+
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+
+      // MAX_VALUE if getChannel() wasn't called at all: no demand.
+      int spare = minWritable.getAndSet(Integer.MAX_VALUE);
+
+      if (spare >= 2 && members.length > minSize) {
+        removed = members[members.length - 1];
+        members = Arrays.copyOf(members, members.length - 1);
+      }
+    }
+
+    if (removed != null) {
+      removed.fsm.disconnect();
+    }
+
+    scheduleShrink();
+  }
+
+  /**
+   * Create a new {@link Builder} for a pool of {@link ChannelFsm}s created by {@code factory}.
+   *
+   * @param factory the {@link ChannelFsmFactory} members are created with.
+   * @return a new {@link Builder}.
+   */
+  public static Builder newBuilder(ChannelFsmFactory factory) {
+    return new Builder(factory);
+  }
+
+  /**
+   * How {@link #getChannel()} picks among the Connected members of the pool.
+   */
+  public enum SelectionStrategy {
+
+    /**
+     * Each Connected member in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The Connected member whose Channel can take the most bytes before it becomes unwritable,
+     * i.e. the one with the fewest bytes pending.
+     */
+    LEAST_PENDING_WRITES,
+
+    /**
+     * The member that can take more bytes before it becomes unwritable out of two Connected
+     * members picked at random.
+     */
+    POWER_OF_TWO_CHOICES
+
+  }
+
+  private static class Member {
+
+    final ChannelFsm fsm;
+
+    Member(ChannelFsm fsm) {
+      this.fsm = fsm;
+    }
+  }
+
+  public static class Builder {
+
+    private int minSize = 1;
+    private int maxSize = 1;
+    private SelectionStrategy selectionStrategy = SelectionStrategy.ROUND_ROBIN;
+    private Duration idleTimeout = Duration.ofMinutes(1);
+    private Scheduler scheduler;
+
+    private final ChannelFsmFactory factory;
+
+    private Builder(ChannelFsmFactory factory) {
+      this.factory = factory;
+    }
+
+    /**
+     * @param minSize the number of members the pool starts with and never shrinks below.
+     * @return this {@link Builder}.
+     */
+    public Builder setMinSize(int minSize) {
+      this.minSize = minSize;
+      return this;
+    }
+
+    /**
+     * @param maxSize the number of members the pool never grows beyond.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * @param selectionStrategy the {@link SelectionStrategy} used to pick a member.
+     * @return this {@link Builder}.
+     */
+    public Builder setSelectionStrategy(SelectionStrategy selectionStrategy) {
+      this.selectionStrategy = selectionStrategy;
+      return this;
+    }
+
+    /**
+     * @param idleTimeout how long every {@link ChannelFsmPool#getChannel()} call must have found
+     *     a spare writable member before a member beyond {@code minSize} is removed.
+     * @return this {@link Builder}.
+     */
+    public Builder setIdleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    /**
+     * @param scheduler the {@link Scheduler} used to check for spare members.
+     * @return this {@link Builder}.
+     */
+    public Builder setScheduler(Scheduler scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    /**
+     * Build the pool and connect its initial members.
+     *
+     * @return a new {@link ChannelFsmPool}.
+     */
+    public ChannelFsmPool build() {
+      if (minSize < 1) {
+        throw new IllegalArgumentException("minSize must be >= 1");
+      }
+      if (maxSize < minSize) {
+        throw new IllegalArgumentException("maxSize must be >= minSize");
+      }
+      if (selectionStrategy == null) {
+        selectionStrategy = SelectionStrategy.ROUND_ROBIN;
+      }
+      if (idleTimeout == null) {
+        idleTimeout = Duration.ofMinutes(1);
+      }
+      if (scheduler == null) {
+        scheduler = ChannelFsmConfigBuilder.SharedScheduler.INSTANCE;
+      }
+
+      return new ChannelFsmPool(
+          factory,
+          minSize,
+          maxSize,
+          selectionStrategy,
+          idleTimeout,
+          scheduler
+      );
+    }
+  }
+
+}
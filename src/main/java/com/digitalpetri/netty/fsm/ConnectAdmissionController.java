@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how fast, and how many at once, {@link ChannelActions#connect} calls are made.
+ *
+ * <p>Combines a token bucket, refilled at {@code connectsPerSecond} up to {@code burst} tokens,
+ * with a maximum number of connect calls in flight. Each connect attempt takes a token and an
+ * in-flight slot; the slot is returned when the attempt completes.
+ *
+ * <p>Attempts that can't be admitted immediately wait in a FIFO queue, so every ChannelFsm
+ * sharing a controller is admitted in the order it asked. A controller can be shared by
+ * ChannelFsm instances from any number of {@link ChannelFsmFactory}s.
+ *
+ * @see ChannelFsmConfigBuilder#setConnectAdmissionController(ConnectAdmissionController)
+ */
+public class ConnectAdmissionController {
+
+  private final Queue<Waiter> waiters = new ArrayDeque<>();
+
+  private final double connectsPerSecond;
+  private final int burst;
+  private final int maxInFlight;
+  private final Scheduler scheduler;
+
+  private double tokens;
+  private long lastRefillNanos;
+  private int inFlight = 0;
+  private boolean drainScheduled = false;
+
+  private long admittedCount = 0L;
+  private long totalWaitNanos = 0L;
+  private long maxWaitNanos = 0L;
+
+  /**
+   * Create a {@link ConnectAdmissionController} that uses the shared {@link Scheduler} to wait
+   * for tokens.
+   *
+   * @param connectsPerSecond the rate tokens are refilled at, or
+   *     {@link Double#POSITIVE_INFINITY} for no rate limit.
+   * @param burst the maximum number of tokens in the bucket.
+   * @param maxInFlight the maximum number of connect calls in flight, or
+   *     {@link Integer#MAX_VALUE} for no limit.
+   */
+  public ConnectAdmissionController(double connectsPerSecond, int burst, int maxInFlight) {
+    this(connectsPerSecond, burst, maxInFlight, ChannelFsmConfigBuilder.SharedScheduler.INSTANCE);
+  }
+
+  /**
+   * Create a {@link ConnectAdmissionController}.
+   *
+   * @param connectsPerSecond the rate tokens are refilled at, or
+   *     {@link Double#POSITIVE_INFINITY} for no rate limit.
+   * @param burst the maximum number of tokens in the bucket.
+   * @param maxInFlight the maximum number of connect calls in flight, or
+   *     {@link Integer#MAX_VALUE} for no limit.
+   * @param scheduler the {@link Scheduler} used to wait for tokens to refill.
+   */
+  public ConnectAdmissionController(
+      double connectsPerSecond,
+      int burst,
+      int maxInFlight,
+      Scheduler scheduler
+  ) {
+
+    if (!(connectsPerSecond > 0)) {
+      throw new IllegalArgumentException("connectsPerSecond must be > 0");
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException("burst must be >= 1");
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be >= 1");
+    }
+
+    this.connectsPerSecond = connectsPerSecond;
+    this.burst = burst;
+    this.maxInFlight = maxInFlight;
+    this.scheduler = scheduler;
+
+    this.tokens = burst;
+    this.lastRefillNanos = System.nanoTime();
+  }
+
+  /**
+   * Wait for admission to make a connect call.
+   *
+   * <p>The {@link Permit} the returned future completes with must be released when the connect
+   * call completes, successfully or not. Cancelling the returned future before it completes stops
+   * waiting, without taking a token or an in-flight slot.
+   *
+   * @return a {@link CompletableFuture} that completes with a {@link Permit} once admitted.
+   */
+  public CompletableFuture<Permit> acquire() {
+    Waiter waiter = new Waiter(System.nanoTime());
+
+    synchronized (this) {
+      waiters.add(waiter);
+    }
+
+    waiter.future.whenComplete((permit, ex) -> {
+      if (waiter.future.isCancelled()) {
+        synchronized (this) {
+          waiters.remove(waiter);
+        }
+      }
+    });
+
+    drain();
+
+    return waiter.future;
+  }
+
+  /**
+   * @return the number of connect attempts waiting for admission.
+   */
+  public synchronized int getQueueDepth() {
+    return waiters.size();
+  }
+
+  /**
+   * @return the number of admitted connect attempts that haven't released their permit yet.
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * @return the number of connect attempts admitted so far.
+   */
+  public synchronized long getAdmittedCount() {
+    return admittedCount;
+  }
+
+  /**
+   * @return the total time, in nanoseconds, admitted connect attempts spent waiting.
+   */
+  public synchronized long getTotalWaitNanos() {
+    return totalWaitNanos;
+  }
+
+  /**
+   * @return the longest time, in nanoseconds, an admitted connect attempt spent waiting.
+   */
+  public synchronized long getMaxWaitNanos() {
+    return maxWaitNanos;
+  }
+
+  /**
+   * Admit as many waiters as tokens and in-flight slots allow, and schedule another drain if
+   * waiters are left behind for lack of tokens.
+   */
+  private void drain() {
+    List<Waiter> admitted = new ArrayList<>();
+
+    synchronized (this) {
+      long now = System.nanoTime();
+      refill(now);
+
+      while (!waiters.isEmpty() && inFlight < maxInFlight && tokens >= 1.0) {
+        Waiter waiter = waiters.remove();
+        if (waiter.future.isDone()) {
+          // Cancelled; not yet removed by its own completion.
+          continue;
+        }
+        tokens -= 1.0;
+        inFlight++;
+
+        long waitNanos = now - waiter.enqueuedNanos;
+        admittedCount++;
+        totalWaitNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+
+        admitted.add(waiter);
+      }
+
+      if (!waiters.isEmpty() && inFlight < maxInFlight && !drainScheduled) {
+        // Out of tokens; try again once the next one has been refilled.
+        long delayNanos = (long) Math.ceil((1.0 - tokens) * 1e9 / connectsPerSecond);
+
+        drainScheduled = true;
+        scheduler.schedule(
+            () -> {
+              synchronized (this) {
+                drainScheduled = false;
+              }
+              drain();
+            },
+            Math.max(1L, delayNanos),
+            TimeUnit.NANOSECONDS
+        );
+      }
+    }
+
+    // Complete outside the lock; completion runs the connect call.
+    for (Waiter waiter : admitted) {
+      Permit permit = new PermitImpl();
+
+      if (!waiter.future.complete(permit)) {
+        // Cancelled after it was admitted; free its in-flight slot for the next waiter.
+        permit.release();
+      }
+    }
+  }
+
+  private void refill(long now) {
+    if (connectsPerSecond == Double.POSITIVE_INFINITY) {
+      tokens = burst;
+    } else {
+      double refilled = (now - lastRefillNanos) * connectsPerSecond / 1e9;
+      tokens = Math.min(burst, tokens + refilled);
+    }
+    lastRefillNanos = now;
+  }
+
+  private void release() {
+    synchronized (this) {
+      inFlight--;
+    }
+
+    drain();
+  }
+
+  /**
+   * Admission to make one connect call.
+   */
+  public interface Permit {
+
+    /**
+     * Release the in-flight slot held by this permit. Subsequent calls have no effect.
+     */
+    void release();
+
+  }
+
+  private class PermitImpl implements Permit {
+
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    @Override
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        ConnectAdmissionController.this.release();
+      }
+    }
+  }
+
+  private static class Waiter {
+
+    final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+    final long enqueuedNanos;
+
+    Waiter(long enqueuedNanos) {
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+
+}
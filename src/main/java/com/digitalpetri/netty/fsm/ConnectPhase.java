@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+/**
+ * The phases of a {@link ChannelActions#connect} call, in the order they complete.
+ *
+ * @see ChannelFsm#recordConnectPhase(com.digitalpetri.fsm.FsmContext, ConnectPhase)
+ */
+public enum ConnectPhase {
+
+  /**
+   * The transport connection, e.g. the TCP connect, has been established.
+   */
+  TRANSPORT_CONNECT,
+
+  /**
+   * The TLS handshake has completed.
+   */
+  TLS_HANDSHAKE,
+
+  /**
+   * The application protocol's handshake, if any, has completed.
+   */
+  APPLICATION_HANDSHAKE
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+/**
+ * How a {@link ChannelFsm} resolves the transition and actions for an event.
+ *
+ * <p>Both modes produce the same transitions and execute the same actions in the same order.
+ */
+public enum DispatchMode {
+
+  /**
+   * Scan every transition and every action in registration order, testing each against the
+   * current state and event.
+   */
+  PREDICATE,
+
+  /**
+   * Look the transition and actions up in tables indexed by state and event type, precomputed
+   * once per {@link ChannelFsmFactory}, so the cost of dispatching an event does not grow with
+   * the number of registered transitions and actions.
+   */
+  INDEXED
+
+}
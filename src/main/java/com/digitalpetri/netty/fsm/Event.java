@@ -17,6 +17,8 @@ public interface Event {
 
   class ChannelIdle implements Event {
 
+    public static final ChannelIdle INSTANCE = new ChannelIdle();
+
     @Override
     public String toString() {
       return getClass().getSimpleName();
@@ -25,6 +27,8 @@ public interface Event {
 
   class ChannelInactive implements Event {
 
+    public static final ChannelInactive INSTANCE = new ChannelInactive();
+
     @Override
     public String toString() {
       return getClass().getSimpleName();
@@ -35,6 +39,12 @@ public interface Event {
 
     public final CompletableFuture<Channel> channelFuture = new CompletableFuture<>();
 
+    /**
+     * {@code true} if fired by {@link ChannelFsm#connect()}, which counts the Connect events it
+     * has fired that haven't been processed yet.
+     */
+    boolean counted = false;
+
     @Override
     public String toString() {
       return getClass().getSimpleName();
@@ -69,6 +79,20 @@ public interface Event {
     }
   }
 
+  /**
+   * The connect attempt in progress was cancelled by a {@link Disconnect}, and will not produce a
+   * {@link ConnectSuccess} or {@link ConnectFailure}.
+   */
+  class ConnectAborted implements Event {
+
+    public static final ConnectAborted INSTANCE = new ConnectAborted();
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName();
+    }
+  }
+
   class Disconnect implements Event {
 
     public final CompletableFuture<Void> disconnectFuture = new CompletableFuture<>();
@@ -81,6 +105,8 @@ public interface Event {
 
   class DisconnectSuccess implements Event {
 
+    public static final DisconnectSuccess INSTANCE = new DisconnectSuccess();
+
     @Override
     public String toString() {
       return getClass().getSimpleName();
@@ -123,6 +149,8 @@ public interface Event {
 
   class ReconnectDelayElapsed implements Event {
 
+    public static final ReconnectDelayElapsed INSTANCE = new ReconnectDelayElapsed();
+
     @Override
     public String toString() {
       return getClass().getSimpleName();
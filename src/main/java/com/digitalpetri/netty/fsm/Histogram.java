@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative {@code long} values, e.g. durations in nanoseconds.
+ *
+ * <p>Values are counted in log-linear buckets, in the style of HdrHistogram: each power of two is
+ * split into {@value #SUB_BUCKET_COUNT} equal sub-buckets, so a recorded value is known to within
+ * 1/{@value #SUB_BUCKET_COUNT} of itself. The buckets are allocated up front and
+ * {@link #record(long)} doesn't allocate.
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+
+  static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final LongAdder sum = new LongAdder();
+
+  private final AtomicLong max = new AtomicLong(0L);
+
+  /**
+   * Record {@code value}. Negative values are recorded as {@code 0}.
+   *
+   * @param value the value to record.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    buckets.incrementAndGet(bucketIndex(value));
+    sum.add(value);
+
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * @return the number of values recorded.
+   */
+  public long getCount() {
+    long count = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * @return the sum of the values recorded.
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * @return the largest value recorded, or {@code 0} if none have been.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get the value that {@code percentile} percent of the recorded values are less than or equal
+   * to, to within the precision of the buckets.
+   *
+   * @param percentile the percentile, from {@code 0.0} to {@code 100.0}.
+   * @return the value at {@code percentile}, or {@code 0} if no values have been recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long count = getCount();
+
+    if (count == 0L) {
+      return 0L;
+    }
+
+    long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+
+    long seen = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), getMax());
+      }
+    }
+
+    return getMax();
+  }
+
+  /**
+   * Get a snapshot of the bucket counts.
+   *
+   * <p>{@code counts[i]} is the number of recorded values between {@link #bucketLowerBound(int)}
+   * and {@link #bucketUpperBound(int)} of {@code i}, inclusive.
+   *
+   * @return a snapshot of the bucket counts.
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return counts;
+  }
+
+  /**
+   * Get the smallest value counted in bucket {@code index}.
+   *
+   * @param index the bucket index.
+   * @return the smallest value counted in bucket {@code index}.
+   */
+  public static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    } else {
+      int shift = index / SUB_BUCKET_COUNT - 1;
+      long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+      return subBucket << shift;
+    }
+  }
+
+  /**
+   * Get the largest value counted in bucket {@code index}.
+   *
+   * @param index the bucket index.
+   * @return the largest value counted in bucket {@code index}.
+   */
+  public static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    } else {
+      int shift = index / SUB_BUCKET_COUNT - 1;
+      return bucketLowerBound(index) + (1L << shift) - 1L;
+    }
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    } else {
+      // shift >= 0 is how far the value's top SUB_BUCKET_BITS + 1 bits are from the bottom.
+      int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+      int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+      return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+  }
+
+}
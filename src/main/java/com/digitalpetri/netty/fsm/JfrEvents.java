@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events emitted by {@link ChannelFsm}.
+ *
+ * <p>Each helper checks whether its event is enabled before filling it in; when it isn't, the
+ * event object doesn't escape and the JIT removes the allocation, so the cost with JFR off, or
+ * with these events disabled, is a check.
+ *
+ * <p>On a runtime without the {@code jdk.jfr} module, e.g. a jlink image, {@link #isAvailable()}
+ * is {@code false} and nothing here touches the {@code jdk.jfr} classes. Callers only see the
+ * begun events as {@code Object}s so they don't reference them either.
+ */
+final class JfrEvents {
+
+  private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+  private JfrEvents() {}
+
+  /**
+   * @return {@code true} if the {@code jdk.jfr} module is present and events can be emitted.
+   */
+  static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Emit a {@link TransitionEvent}. Must only be called if {@link #isAvailable()}.
+   */
+  static void transition(long fsmId, State from, State to, Event event) {
+    TransitionEvent e = new TransitionEvent();
+
+    if (e.isEnabled()) {
+      e.fsmId = fsmId;
+      e.from = from.name();
+      e.to = to.name();
+      e.event = event.getClass().getSimpleName();
+      e.commit();
+    }
+  }
+
+  /**
+   * Begin a {@link ConnectEvent}.
+   *
+   * @param fsmId the id of the ChannelFsm connecting.
+   * @return the begun {@link ConnectEvent}, or {@code null} if it isn't enabled or JFR isn't
+   *     available.
+   */
+  static Object beginConnect(long fsmId) {
+    if (!AVAILABLE) {
+      return null;
+    }
+
+    ConnectEvent e = new ConnectEvent();
+
+    if (e.isEnabled()) {
+      e.fsmId = fsmId;
+      e.begin();
+      return e;
+    } else {
+      return null;
+    }
+  }
+
+  static void endConnect(Object connectEvent, Throwable failure) {
+    if (connectEvent != null) {
+      ConnectEvent e = (ConnectEvent) connectEvent;
+      e.end();
+      e.success = failure == null;
+      e.failure = failure != null ? failure.toString() : null;
+      e.commit();
+    }
+  }
+
+  /**
+   * Begin a {@link KeepAliveEvent}.
+   *
+   * @param fsmId the id of the ChannelFsm sending the keep-alive.
+   * @return the begun {@link KeepAliveEvent}, or {@code null} if it isn't enabled or JFR isn't
+   *     available.
+   */
+  static Object beginKeepAlive(long fsmId) {
+    if (!AVAILABLE) {
+      return null;
+    }
+
+    KeepAliveEvent e = new KeepAliveEvent();
+
+    if (e.isEnabled()) {
+      e.fsmId = fsmId;
+      e.begin();
+      return e;
+    } else {
+      return null;
+    }
+  }
+
+  static void endKeepAlive(Object keepAliveEvent, Throwable failure) {
+    if (keepAliveEvent != null) {
+      KeepAliveEvent e = (KeepAliveEvent) keepAliveEvent;
+      e.end();
+      e.success = failure == null;
+      e.failure = failure != null ? failure.toString() : null;
+      e.commit();
+    }
+  }
+
+  @Name("com.digitalpetri.netty.fsm.Transition")
+  @Label("ChannelFsm Transition")
+  @Category({"Netty", "ChannelFsm"})
+  @Description("A ChannelFsm state transition, including internal transitions")
+  static final class TransitionEvent extends jdk.jfr.Event {
+
+    @Label("FSM Id")
+    long fsmId;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Event")
+    String event;
+  }
+
+  @Name("com.digitalpetri.netty.fsm.Connect")
+  @Label("ChannelFsm Connect")
+  @Category({"Netty", "ChannelFsm"})
+  @Description("A ChannelActions.connect call, until the future it returned completed")
+  static final class ConnectEvent extends jdk.jfr.Event {
+
+    @Label("FSM Id")
+    long fsmId;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Failure")
+    String failure;
+  }
+
+  @Name("com.digitalpetri.netty.fsm.KeepAlive")
+  @Label("ChannelFsm Keep-Alive")
+  @Category({"Netty", "ChannelFsm"})
+  @Description("A ChannelActions.keepAlive call; the duration is the round-trip time")
+  static final class KeepAliveEvent extends jdk.jfr.Event {
+
+    @Label("FSM Id")
+    long fsmId;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Failure")
+    String failure;
+  }
+
+}
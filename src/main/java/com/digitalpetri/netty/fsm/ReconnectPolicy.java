@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computes the delay a {@link ChannelFsm} waits in {@link State#ReconnectWait} before its next
+ * reconnect attempt.
+ */
+public interface ReconnectPolicy {
+
+  /**
+   * Get the delay, in milliseconds, before reconnect attempt number {@code attempt}.
+   *
+   * @param attempt the reconnect attempt number; {@code 1} for the first attempt after the
+   *     connection was lost or the initial connect failed, incremented for each failed attempt
+   *     since.
+   * @param previousDelayMillis the delay returned for the previous attempt, or {@code 0} if
+   *     {@code attempt} is {@code 1}.
+   * @param cause the failure that caused the FSM to enter {@link State#ReconnectWait}, or
+   *     {@code null} if the Channel became inactive.
+   * @return the delay, in milliseconds, before the next reconnect attempt.
+   */
+  long getReconnectDelayMillis(int attempt, long previousDelayMillis, Throwable cause);
+
+  /**
+   * Exponential backoff: {@code initialDelayMillis}, doubled after every failed attempt, up to
+   * {@code maxDelayMillis}.
+   *
+   * @param initialDelayMillis the delay before the first attempt, at least {@code 1}.
+   * @param maxDelayMillis the maximum delay.
+   * @return an exponential backoff {@link ReconnectPolicy}.
+   */
+  static ReconnectPolicy exponential(long initialDelayMillis, long maxDelayMillis) {
+    checkDelays(initialDelayMillis, maxDelayMillis);
+
+    return (attempt, previousDelayMillis, cause) ->
+        exponentialDelay(initialDelayMillis, maxDelayMillis, attempt);
+  }
+
+  /**
+   * Exponential backoff with "full jitter": a random delay between {@code 0} and the
+   * {@link #exponential(long, long)} delay for the same attempt.
+   *
+   * <p>Spreads reconnect attempts from many clients that lost their connection at the same time.
+   *
+   * @param baseDelayMillis the exponential delay before the first attempt, at least {@code 1}.
+   * @param maxDelayMillis the maximum delay.
+   * @return a full jitter {@link ReconnectPolicy}.
+   */
+  static ReconnectPolicy fullJitter(long baseDelayMillis, long maxDelayMillis) {
+    checkDelays(baseDelayMillis, maxDelayMillis);
+
+    return (attempt, previousDelayMillis, cause) -> {
+      long delay = exponentialDelay(baseDelayMillis, maxDelayMillis, attempt);
+
+      return ThreadLocalRandom.current().nextLong(delay + 1);
+    };
+  }
+
+  /**
+   * "Decorrelated jitter": a random delay between {@code baseDelayMillis} and three times the
+   * previous delay, up to {@code maxDelayMillis}.
+   *
+   * @param baseDelayMillis the minimum delay, at least {@code 1}.
+   * @param maxDelayMillis the maximum delay.
+   * @return a decorrelated jitter {@link ReconnectPolicy}.
+   */
+  static ReconnectPolicy decorrelatedJitter(long baseDelayMillis, long maxDelayMillis) {
+    checkDelays(baseDelayMillis, maxDelayMillis);
+
+    return (attempt, previousDelayMillis, cause) -> {
+      long previous = Math.max(baseDelayMillis, previousDelayMillis);
+      long upper = previous > maxDelayMillis / 3 ? maxDelayMillis : previous * 3;
+
+      if (upper <= baseDelayMillis) {
+        return Math.min(baseDelayMillis, maxDelayMillis);
+      } else {
+        return ThreadLocalRandom.current().nextLong(baseDelayMillis, upper + 1);
+      }
+    };
+  }
+
+  private static long exponentialDelay(long initialDelayMillis, long maxDelayMillis, int attempt) {
+    int shift = Math.max(0, attempt - 1);
+
+    if (shift >= Long.numberOfLeadingZeros(initialDelayMillis) - 1) {
+      return maxDelayMillis;
+    } else {
+      return Math.min(maxDelayMillis, initialDelayMillis << shift);
+    }
+  }
+
+  private static void checkDelays(long initialDelayMillis, long maxDelayMillis) {
+    // A delay of 0 stays 0 however often it's doubled or tripled; reconnects would spin.
+    if (initialDelayMillis < 1) {
+      throw new IllegalArgumentException("initialDelayMillis must be >= 1");
+    }
+    if (maxDelayMillis < initialDelayMillis) {
+      throw new IllegalArgumentException("maxDelayMillis must be >= initialDelayMillis");
+    }
+  }
+
+}
@@ -10,6 +10,8 @@
 
 package com.digitalpetri.netty.fsm;
 
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -51,4 +53,21 @@ public interface Scheduler {
     };
   }
 
+  /**
+   * Create a {@link Scheduler} from the provided {@link Timer}.
+   *
+   * <p>With a {@link io.netty.util.HashedWheelTimer} scheduling and cancelling are O(1), which
+   * suits large numbers of FSMs with concurrently pending reconnect delays.
+   *
+   * @param timer a {@link Timer}.
+   * @return a {@link Scheduler}.
+   */
+  static Scheduler fromTimer(Timer timer) {
+    return (command, delay, unit) -> {
+      Timeout timeout = timer.newTimeout(t -> command.run(), delay, unit);
+
+      return timeout::cancel;
+    };
+  }
+
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Executor} made of a fixed number of serial lanes, each backed by its own thread.
+ *
+ * <p>When a {@link ChannelFsm} is configured with a {@link StripedExecutor} it is pinned to one
+ * lane, chosen by hash, and runs all of its work on that lane. Work for any one FSM is executed
+ * in order, while work for different FSMs is spread across all lanes.
+ */
+public final class StripedExecutor implements Executor {
+
+  private final ExecutorService[] lanes;
+
+  /**
+   * Create a {@link StripedExecutor} with {@code laneCount} lanes backed by daemon threads.
+   *
+   * @param laneCount the number of lanes.
+   */
+  public StripedExecutor(int laneCount) {
+    this(laneCount, new LaneThreadFactory("channel-fsm-striped-executor"));
+  }
+
+  /**
+   * Create a {@link StripedExecutor} with {@code laneCount} lanes backed by threads created by
+   * {@code threadFactory}.
+   *
+   * @param laneCount the number of lanes.
+   * @param threadFactory the {@link ThreadFactory} used to create the thread for each lane.
+   */
+  public StripedExecutor(int laneCount, ThreadFactory threadFactory) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("laneCount must be >= 1");
+    }
+
+    lanes = new ExecutorService[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+    }
+  }
+
+  /**
+   * @return the number of lanes in this {@link StripedExecutor}.
+   */
+  public int getLaneCount() {
+    return lanes.length;
+  }
+
+  /**
+   * Get the lane {@code key} is pinned to.
+   *
+   * <p>The same key is always pinned to the same lane.
+   *
+   * @param key the key to get the lane for.
+   * @return the serial {@link Executor} for {@code key}'s lane.
+   */
+  public Executor lane(Object key) {
+    int h = key.hashCode();
+
+    return lanes[Math.floorMod(h ^ (h >>> 16), lanes.length)];
+  }
+
+  /**
+   * Execute {@code command} on the lane it hashes to.
+   *
+   * <p>Commands submitted directly to this method have no ordering relative to each other; use
+   * {@link #lane(Object)} when ordering matters.
+   *
+   * @param command the command to execute.
+   */
+  @Override
+  public void execute(Runnable command) {
+    lane(command).execute(command);
+  }
+
+  /**
+   * Shut down every lane. Previously submitted work is executed, but no new work is accepted.
+   */
+  public void shutdown() {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+  }
+
+  /**
+   * Get the shared {@link StripedExecutor}, with one lane per available processor.
+   *
+   * @return the shared {@link StripedExecutor}.
+   */
+  public static StripedExecutor shared() {
+    return Shared.INSTANCE;
+  }
+
+  private static class Shared {
+
+    private static final StripedExecutor INSTANCE =
+        new StripedExecutor(Runtime.getRuntime().availableProcessors());
+  }
+
+  private static class LaneThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+    private final String namePrefix;
+
+    LaneThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setName(namePrefix + "-" + threadNumber.getAndIncrement());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.netty.fsm.ChannelFsm.TransitionListener;
+import com.digitalpetri.netty.fsm.TransitionListenerOptions.OverflowPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies the {@link TransitionListener}s of one {@link ChannelFsm}.
+ *
+ * <p>The listeners interested in each (event type, to) pair are computed the first time an event
+ * of that type is dispatched after a listener is added or removed, so a transition only visits
+ * the listeners whose {@link State} and {@link Event} type filters it passes.
+ */
+final class TransitionDispatcher {
+
+  private static final State[] STATES = State.values();
+
+  private static final Registration[] NONE = new Registration[0];
+
+  private final List<Registration> registrations = new ArrayList<>();
+
+  private volatile Table table = new Table(NONE);
+
+  synchronized void add(TransitionListener listener, TransitionListenerOptions options) {
+    registrations.add(new Registration(listener, options));
+
+    rebuild();
+  }
+
+  synchronized void remove(TransitionListener listener) {
+    for (int i = 0; i < registrations.size(); i++) {
+      if (registrations.get(i).listener.equals(listener)) {
+        registrations.remove(i);
+        rebuild();
+        return;
+      }
+    }
+  }
+
+  void dispatch(State from, State to, Event event) {
+    for (Registration registration : table.get(event.getClass())[to.ordinal()]) {
+      registration.notify(from, to, event);
+    }
+  }
+
+  private void rebuild() {
+    this.table = new Table(registrations.toArray(NONE));
+  }
+
+  /**
+   * The {@link Registration}s to notify for each event type, indexed by {@code to}. Replaced,
+   * rather than modified, when a listener is added or removed.
+   */
+  private static final class Table extends ClassValue<Registration[][]> {
+
+    private final Registration[] registrations;
+
+    Table(Registration[] registrations) {
+      this.registrations = registrations;
+    }
+
+    @Override
+    protected Registration[][] computeValue(Class<?> eventType) {
+      Registration[][] byTo = new Registration[STATES.length][];
+
+      for (State to : STATES) {
+        Registration[] matching = Arrays.stream(registrations)
+            .filter(r -> r.states.contains(to))
+            .filter(r -> r.eventTypes == null || r.eventTypes.contains(eventType))
+            .toArray(Registration[]::new);
+
+        byTo[to.ordinal()] = matching.length > 0 ? matching : NONE;
+      }
+
+      return byTo;
+    }
+  }
+
+  private static final class Registration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransitionDispatcher.class);
+
+    final TransitionListener listener;
+    final Set<State> states;
+    final Set<Class<? extends Event>> eventTypes;
+
+    private final Executor executor;
+    private final OverflowPolicy overflowPolicy;
+
+    // A ring buffer of queued notifications, allocated only when notified on an Executor.
+    private final State[] queuedFroms;
+    private final State[] queuedTos;
+    private final Event[] queuedEvents;
+    private int head = 0;
+    private int size = 0;
+    private boolean draining = false;
+
+    Registration(TransitionListener listener, TransitionListenerOptions options) {
+      this.listener = listener;
+      this.states = options.getStates();
+      this.eventTypes = options.getEventTypes();
+      this.executor = options.getExecutor();
+      this.overflowPolicy = options.getOverflowPolicy();
+
+      int capacity = executor != null ? options.getQueueCapacity() : 0;
+      queuedFroms = new State[capacity];
+      queuedTos = new State[capacity];
+      queuedEvents = new Event[capacity];
+    }
+
+    void notify(State from, State to, Event event) {
+      if (executor == null) {
+        listener.onStateTransition(from, to, event);
+      } else {
+        enqueue(from, to, event);
+      }
+    }
+
+    private void enqueue(State from, State to, Event event) {
+      int capacity = queuedEvents.length;
+
+      synchronized (this) {
+        if (size == capacity) {
+          if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+            return;
+          }
+          queuedEvents[head] = null;
+          head = (head + 1) % capacity;
+          size--;
+        }
+
+        int tail = (head + size) % capacity;
+        queuedFroms[tail] = from;
+        queuedTos[tail] = to;
+        queuedEvents[tail] = event;
+        size++;
+
+        if (draining) {
+          return;
+        }
+        draining = true;
+      }
+
+      scheduleDrain();
+    }
+
+    /**
+     * Notify the listener of up to one queue's worth of notifications, then yield the Executor
+     * if more remain.
+     */
+    private void drain() {
+      int capacity = queuedEvents.length;
+
+      for (int i = 0; i < capacity; i++) {
+        State from;
+        State to;
+        Event event;
+
+        synchronized (this) {
+          if (size == 0) {
+            draining = false;
+            return;
+          }
+
+          from = queuedFroms[head];
+          to = queuedTos[head];
+          event = queuedEvents[head];
+          queuedEvents[head] = null;
+          head = (head + 1) % capacity;
+          size--;
+        }
+
+        try {
+          listener.onStateTransition(from, to, event);
+        } catch (Throwable t) {
+          LOGGER.warn("Uncaught Throwable in TransitionListener", t);
+        }
+      }
+
+      scheduleDrain();
+    }
+
+    /**
+     * Submit {@link #drain()} to the Executor. If it's rejected, what's queued stays queued until
+     * the next notification tries again.
+     */
+    private void scheduleDrain() {
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          draining = false;
+        }
+        LOGGER.warn("TransitionListener Executor rejected notifications", e);
+      }
+    }
+  }
+
+}
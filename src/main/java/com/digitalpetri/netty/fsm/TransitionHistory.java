@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed-size ring buffer of the most recent transitions of one {@link ChannelFsm}.
+ *
+ * <p>Entries are stored in primitive arrays: recording a transition doesn't allocate or lock.
+ * There is a single writer, the FSM's transition action; {@link #snapshot()} can be called from
+ * any thread at any time and returns the entries that weren't overwritten while it was copying.
+ *
+ * @see ChannelFsmConfigBuilder#setTransitionHistorySize(int)
+ * @see ChannelFsm#getTransitionHistory()
+ */
+public final class TransitionHistory {
+
+  private static final State[] STATES = State.values();
+
+  private final long[] timestamps;
+  private final byte[] froms;
+  private final byte[] tos;
+  private final int[] eventTypeIds;
+
+  /**
+   * The sequence number of the next entry; entry {@code n} is stored at
+   * {@code n % capacity}.
+   */
+  private volatile long next = 0L;
+
+  /**
+   * The sequence number after the entry being written; equal to {@link #next} when no entry is
+   * being written.
+   */
+  private volatile long writing = 0L;
+
+  TransitionHistory(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be >= 1");
+    }
+
+    timestamps = new long[capacity];
+    froms = new byte[capacity];
+    tos = new byte[capacity];
+    eventTypeIds = new int[capacity];
+  }
+
+  /**
+   * Record a transition. Must only be called by one thread at a time.
+   *
+   * @param from the {@link State} transitioned from.
+   * @param to the {@link State} transitioned to.
+   * @param event the {@link Event} that caused the transition.
+   */
+  void record(State from, State to, Event event) {
+    long sequence = next;
+    int slot = (int) (sequence % timestamps.length);
+
+    writing = sequence + 1;
+    // Keep the writes below from moving ahead of the write to writing above.
+    VarHandle.releaseFence();
+
+    timestamps[slot] = System.currentTimeMillis();
+    froms[slot] = (byte) from.ordinal();
+    tos[slot] = (byte) to.ordinal();
+    eventTypeIds[slot] = TransitionTable.eventTypeId(event.getClass());
+
+    next = sequence + 1;
+  }
+
+  /**
+   * @return the maximum number of entries kept.
+   */
+  public int getCapacity() {
+    return timestamps.length;
+  }
+
+  /**
+   * Copy the recorded entries, oldest first.
+   *
+   * @return the recorded entries, oldest first.
+   */
+  public List<Entry> snapshot() {
+    int capacity = timestamps.length;
+    long end = next;
+    long start = Math.max(0L, end - capacity);
+
+    var entries = new ArrayList<Entry>((int) (end - start));
+
+    for (long sequence = start; sequence < end; sequence++) {
+      int slot = (int) (sequence % capacity);
+
+      entries.add(new Entry(
+          sequence,
+          timestamps[slot],
+          STATES[froms[slot]],
+          STATES[tos[slot]],
+          TransitionTable.eventType(eventTypeIds[slot])
+      ));
+    }
+
+    // Keep the reads above from moving past the re-read of next below.
+    VarHandle.acquireFence();
+
+    // The writer may have overwritten the oldest entries while they were being copied.
+    long firstIntact = writing - capacity;
+
+    if (firstIntact > start) {
+      int overwritten = (int) Math.min(entries.size(), firstIntact - start);
+      return Collections.unmodifiableList(entries.subList(overwritten, entries.size()));
+    } else {
+      return Collections.unmodifiableList(entries);
+    }
+  }
+
+  /**
+   * A transition recorded by a {@link ChannelFsm}.
+   */
+  public static final class Entry {
+
+    private final long sequence;
+    private final long timestamp;
+    private final State from;
+    private final State to;
+    private final Class<?> eventType;
+
+    Entry(long sequence, long timestamp, State from, State to, Class<?> eventType) {
+      this.sequence = sequence;
+      this.timestamp = timestamp;
+      this.from = from;
+      this.to = to;
+      this.eventType = eventType;
+    }
+
+    /**
+     * @return the number of transitions the ChannelFsm made before this one.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * @return the time of the transition, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * @return the {@link State} transitioned from.
+     */
+    public State getFrom() {
+      return from;
+    }
+
+    /**
+     * @return the {@link State} transitioned to.
+     */
+    public State getTo() {
+      return to;
+    }
+
+    /**
+     * @return the type of the {@link Event} that caused the transition.
+     */
+    public Class<?> getEventType() {
+      return eventType;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "#%d %d %s -> %s via %s",
+          sequence,
+          timestamp,
+          from,
+          to,
+          eventType.getSimpleName()
+      );
+    }
+
+  }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.netty.fsm.ChannelFsm.TransitionListener;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Which transitions a {@link TransitionListener} is notified of, and how.
+ *
+ * <p>Listeners are notified synchronously, from the FSM's transition action, unless an
+ * {@link Executor} is set. A listener with an Executor is notified, in order, from a bounded
+ * queue drained on that Executor; when the queue is full the {@link OverflowPolicy} decides which
+ * notification is dropped.
+ *
+ * @see ChannelFsm#addTransitionListener(TransitionListener, TransitionListenerOptions)
+ */
+public final class TransitionListenerOptions {
+
+  private final Set<State> states;
+  private final Set<Class<? extends Event>> eventTypes;
+  private final Executor executor;
+  private final int queueCapacity;
+  private final OverflowPolicy overflowPolicy;
+
+  private TransitionListenerOptions(
+      Set<State> states,
+      Set<Class<? extends Event>> eventTypes,
+      Executor executor,
+      int queueCapacity,
+      OverflowPolicy overflowPolicy
+  ) {
+
+    this.states = states;
+    this.eventTypes = eventTypes;
+    this.executor = executor;
+    this.queueCapacity = queueCapacity;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * @return the {@link State}s a listener is notified of transitions to.
+   */
+  public Set<State> getStates() {
+    return states;
+  }
+
+  /**
+   * @return the {@link Event} types a listener is notified of transitions caused by, or
+   *     {@code null} for any type.
+   */
+  public Set<Class<? extends Event>> getEventTypes() {
+    return eventTypes;
+  }
+
+  /**
+   * @return the {@link Executor} a listener is notified on, or {@code null} if it is notified
+   *     synchronously.
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * @return the maximum number of notifications queued for a listener with an
+   *     {@link Executor}.
+   */
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * @return the {@link OverflowPolicy} applied when a listener's queue is full.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Create a new {@link Builder}. The defaults notify of every transition, synchronously.
+   *
+   * @return a new {@link Builder}.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * What to do with a notification for a listener whose queue is full.
+   */
+  public enum OverflowPolicy {
+
+    /**
+     * Drop the new notification.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest queued notification to make room for the new one.
+     */
+    DROP_OLDEST
+
+  }
+
+  public static class Builder {
+
+    private Set<State> states = EnumSet.allOf(State.class);
+    private Set<Class<? extends Event>> eventTypes = null;
+    private Executor executor = null;
+    private int queueCapacity = 1024;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    private Builder() {}
+
+    /**
+     * @param states the {@link State}s to be notified of transitions to, including internal
+     *     transitions.
+     * @return this {@link Builder}.
+     */
+    public Builder setStates(Set<State> states) {
+      this.states = states.isEmpty() ? EnumSet.noneOf(State.class) : EnumSet.copyOf(states);
+      return this;
+    }
+
+    /**
+     * @param eventTypes the {@link Event} types to be notified of transitions caused by, or
+     *     {@code null} for any type.
+     * @return this {@link Builder}.
+     */
+    public Builder setEventTypes(Set<Class<? extends Event>> eventTypes) {
+      this.eventTypes = eventTypes != null ? Set.copyOf(eventTypes) : null;
+      return this;
+    }
+
+    /**
+     * @param executor the {@link Executor} to be notified on, or {@code null} to be notified
+     *     synchronously.
+     * @return this {@link Builder}.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * @param queueCapacity the maximum number of notifications queued when notified on an
+     *     {@link Executor}.
+     * @return this {@link Builder}.
+     */
+    public Builder setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * @param overflowPolicy the {@link OverflowPolicy} applied when the queue is full.
+     * @return this {@link Builder}.
+     */
+    public Builder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    public TransitionListenerOptions build() {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("queueCapacity must be >= 1");
+      }
+      if (overflowPolicy == null) {
+        overflowPolicy = OverflowPolicy.DROP_OLDEST;
+      }
+
+      return new TransitionListenerOptions(
+          states,
+          eventTypes,
+          executor,
+          queueCapacity,
+          overflowPolicy
+      );
+    }
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ChannelFsmMetrics} that counts transitions per (from, to, event type) and keeps a
+ * {@link Histogram} of dwell times per {@link State}, and of connect latencies per
+ * {@link ConnectPhase}, in memory, along with the bytes and time spent spilling and replaying
+ * writes.
+ *
+ * <p>One instance is typically shared by every ChannelFsm from a {@link ChannelFsmConfig}.
+ * Counters are allocated the first time an event type is seen; after that, recording doesn't
+ * allocate.
+ */
+public class TransitionMetrics implements ChannelFsmMetrics {
+
+  private static final State[] STATES = State.values();
+
+  private final CopyOnWriteArrayList<Class<? extends Event>> eventTypes =
+      new CopyOnWriteArrayList<>();
+
+  private final ClassValue<LongAdder[]> transitionCounts = new ClassValue<>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    protected LongAdder[] computeValue(Class<?> type) {
+      var counts = new LongAdder[STATES.length * STATES.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = new LongAdder();
+      }
+      eventTypes.addIfAbsent((Class<? extends Event>) type);
+      return counts;
+    }
+  };
+
+  private final Histogram[] dwellHistograms = new Histogram[STATES.length];
+
+  private final Histogram connectSuccessHistogram = new Histogram();
+  private final Histogram connectFailureHistogram = new Histogram();
+
+  private final Histogram[] connectPhaseHistograms =
+      new Histogram[ConnectPhase.values().length];
+
+  private final LongAdder spilledBytes = new LongAdder();
+  private final LongAdder spillNanos = new LongAdder();
+  private final LongAdder replayedBytes = new LongAdder();
+  private final LongAdder replayNanos = new LongAdder();
+
+  public TransitionMetrics() {
+    for (int i = 0; i < dwellHistograms.length; i++) {
+      dwellHistograms[i] = new Histogram();
+    }
+    for (int i = 0; i < connectPhaseHistograms.length; i++) {
+      connectPhaseHistograms[i] = new Histogram();
+    }
+  }
+
+  @Override
+  public void recordTransition(State from, State to, Class<? extends Event> eventType) {
+    transitionCounts.get(eventType)[from.ordinal() * STATES.length + to.ordinal()].increment();
+  }
+
+  @Override
+  public void recordDwell(State state, long dwellNanos) {
+    dwellHistograms[state.ordinal()].record(dwellNanos);
+  }
+
+  @Override
+  public void recordConnect(long durationNanos, boolean success) {
+    if (success) {
+      connectSuccessHistogram.record(durationNanos);
+    } else {
+      connectFailureHistogram.record(durationNanos);
+    }
+  }
+
+  @Override
+  public void recordConnectPhase(ConnectPhase phase, long durationNanos) {
+    connectPhaseHistograms[phase.ordinal()].record(durationNanos);
+  }
+
+  @Override
+  public void recordWriteSpill(int bytes, long durationNanos) {
+    spilledBytes.add(bytes);
+    spillNanos.add(durationNanos);
+  }
+
+  @Override
+  public void recordWriteReplay(long bytes, long durationNanos) {
+    replayedBytes.add(bytes);
+    replayNanos.add(durationNanos);
+  }
+
+  /**
+   * Get the number of transitions from {@code from} to {@code to} caused by an event of type
+   * {@code eventType}.
+   *
+   * @param from the {@link State} transitioned from.
+   * @param to the {@link State} transitioned to.
+   * @param eventType the {@link Event} type.
+   * @return the number of transitions from {@code from} to {@code to} caused by an event of type
+   *     {@code eventType}.
+   */
+  public long getTransitionCount(State from, State to, Class<? extends Event> eventType) {
+    return transitionCounts.get(eventType)[from.ordinal() * STATES.length + to.ordinal()].sum();
+  }
+
+  /**
+   * Get the number of transitions from {@code from} to {@code to}, caused by any event type.
+   *
+   * @param from the {@link State} transitioned from.
+   * @param to the {@link State} transitioned to.
+   * @return the number of transitions from {@code from} to {@code to}.
+   */
+  public long getTransitionCount(State from, State to) {
+    long count = 0L;
+    for (Class<? extends Event> eventType : eventTypes) {
+      count += getTransitionCount(from, to, eventType);
+    }
+    return count;
+  }
+
+  /**
+   * @return the {@link Event} types transitions are counted for; every type that has caused a
+   *     transition, and any other type passed to {@link #getTransitionCount(State, State, Class)}.
+   */
+  public List<Class<? extends Event>> getEventTypes() {
+    return List.copyOf(eventTypes);
+  }
+
+  /**
+   * Get the {@link Histogram} of the time, in nanoseconds, ChannelFsms spent in {@code state}
+   * before leaving it.
+   *
+   * @param state the {@link State}.
+   * @return the {@link Histogram} of dwell times in {@code state}.
+   */
+  public Histogram getDwellHistogram(State state) {
+    return dwellHistograms[state.ordinal()];
+  }
+
+  /**
+   * @return the {@link Histogram} of the time, in nanoseconds, successful connect calls took.
+   */
+  public Histogram getConnectSuccessHistogram() {
+    return connectSuccessHistogram;
+  }
+
+  /**
+   * @return the {@link Histogram} of the time, in nanoseconds, failed connect calls took.
+   */
+  public Histogram getConnectFailureHistogram() {
+    return connectFailureHistogram;
+  }
+
+  /**
+   * Get the {@link Histogram} of the time, in nanoseconds, connect calls spent in
+   * {@code phase}.
+   *
+   * @param phase the {@link ConnectPhase}.
+   * @return the {@link Histogram} of the time connect calls spent in {@code phase}.
+   */
+  public Histogram getConnectPhaseHistogram(ConnectPhase phase) {
+    return connectPhaseHistograms[phase.ordinal()];
+  }
+
+  /**
+   * @return the total size, in bytes, of the writes spilled to disk.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes.sum();
+  }
+
+  /**
+   * @return the total time, in nanoseconds, spent spilling writes to disk; spill throughput is
+   *     {@link #getSpilledBytes()} over this.
+   */
+  public long getSpillNanos() {
+    return spillNanos.sum();
+  }
+
+  /**
+   * @return the total size, in bytes, of the spilled writes replayed to a Channel.
+   */
+  public long getReplayedBytes() {
+    return replayedBytes.sum();
+  }
+
+  /**
+   * @return the total time, in nanoseconds, spent replaying spilled writes; replay throughput is
+   *     {@link #getReplayedBytes()} over this.
+   */
+  public long getReplayNanos() {
+    return replayNanos.sum();
+  }
+
+}
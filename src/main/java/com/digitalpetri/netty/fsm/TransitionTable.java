@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.fsm.FsmContext;
+import com.digitalpetri.fsm.dsl.Action;
+import com.digitalpetri.fsm.dsl.ActionContext;
+import com.digitalpetri.fsm.dsl.Transition;
+import com.digitalpetri.fsm.dsl.TransitionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * The immutable {@link Transition}s and {@link TransitionAction}s that make up a
+ * {@link ChannelFsm}.
+ *
+ * <p>A table is built once per {@link ChannelFsmFactory} and shared by every {@link ChannelFsm}
+ * it creates. Nothing in a table may capture per-instance state; actions reach per-instance state
+ * through the {@link FsmContext} they are executed with.
+ *
+ * <p>Transitions and actions only ever match events by their class, so in
+ * {@link DispatchMode#INDEXED} mode the table is compiled into dense arrays indexed by state
+ * ordinal and event type and each event is dispatched with a constant number of array reads.
+ */
+final class TransitionTable {
+
+  private static final State[] STATES = State.values();
+
+  private static final Action<?, ?>[] NO_ACTIONS = new Action<?, ?>[0];
+
+  private final List<Transition<State, Event>> transitions;
+  private final List<TransitionAction<State, Event>> transitionActions;
+
+  private TransitionTable(
+      List<Transition<State, Event>> transitions,
+      List<TransitionAction<State, Event>> transitionActions
+  ) {
+
+    this.transitions = transitions;
+    this.transitionActions = transitionActions;
+  }
+
+  /**
+   * Get the {@link Transition}s to give a new state machine instance.
+   *
+   * <p>In {@link DispatchMode#INDEXED} mode the single {@link Transition} carries the result of
+   * its last lookup between {@link Transition#matches} and {@link Transition#target()}, so each
+   * instance gets its own.
+   *
+   * @return the {@link Transition}s to give a new state machine instance.
+   */
+  List<Transition<State, Event>> transitionsForInstance() {
+    if (transitions.size() == 1 && transitions.get(0) instanceof IndexedTransition) {
+      return List.of(new IndexedTransition(((IndexedTransition) transitions.get(0)).index));
+    } else {
+      return transitions;
+    }
+  }
+
+  /**
+   * Get the {@link TransitionAction}s, in the order they are executed.
+   *
+   * @return the {@link TransitionAction}s, in the order they are executed.
+   */
+  List<TransitionAction<State, Event>> getTransitionActions() {
+    return transitionActions;
+  }
+
+  /**
+   * Get the id of an {@link Event} type.
+   *
+   * <p>Ids are small, dense, and assigned in the order types are first seen.
+   *
+   * @param eventType the {@link Event} type.
+   * @return the id of {@code eventType}.
+   */
+  static int eventTypeId(Class<?> eventType) {
+    return EventTypes.IDS.get(eventType);
+  }
+
+  /**
+   * Get the {@link Event} type with id {@code id}.
+   *
+   * @param id an id previously returned by {@link #eventTypeId(Class)}.
+   * @return the {@link Event} type with id {@code id}.
+   */
+  static Class<?> eventType(int id) {
+    return EventTypes.TYPES.get(id);
+  }
+
+  /**
+   * Builds a {@link TransitionTable} using the same DSL as strict-machine's
+   * {@link com.digitalpetri.fsm.dsl.FsmBuilder}, except that events are matched by class only.
+   */
+  static final class Builder {
+
+    private final List<TableTransition> transitions = new ArrayList<>();
+    private final LinkedList<TableAction> transitionActions = new LinkedList<>();
+
+    TransitionBuilder when(State state) {
+      return new TransitionBuilder(state);
+    }
+
+    ActionBuilder onInternalTransition(State state) {
+      return new ActionBuilder(s -> s == state, s -> s == state);
+    }
+
+    ActionBuilder onTransitionTo(State state) {
+      return onTransitionTo(s -> s == state);
+    }
+
+    ActionBuilder onTransitionTo(Predicate<State> filter) {
+      return new ActionBuilder(s -> true, filter);
+    }
+
+    ActionBuilder onTransitionFrom(State state) {
+      return onTransitionFrom(s -> s == state);
+    }
+
+    ActionBuilder onTransitionFrom(Predicate<State> filter) {
+      return new ActionBuilder(filter, s -> true);
+    }
+
+    ActionBuilder onAnyTransition() {
+      return new ActionBuilder(s -> true, s -> true);
+    }
+
+    TransitionTable build(ChannelFsmConfig config) {
+      if (config.getDispatchMode() == DispatchMode.INDEXED) {
+        Index index = new Index(transitions, transitionActions, config);
+
+        return new TransitionTable(
+            List.of(new IndexedTransition(index)),
+            List.of(new IndexedTransitionAction(index))
+        );
+      } else {
+        return new TransitionTable(
+            List.copyOf(transitions),
+            List.copyOf(transitionActions)
+        );
+      }
+    }
+
+    final class TransitionBuilder {
+
+      private final State from;
+      private Set<Class<?>> via;
+
+      private TransitionBuilder(State from) {
+        this.from = from;
+      }
+
+      @SafeVarargs
+      final TransitionBuilder on(Class<? extends Event>... eventTypes) {
+        // Copied element by element; passing the varargs array on would warn about heap pollution.
+        this.via = new HashSet<>();
+        for (Class<? extends Event> eventType : eventTypes) {
+          via.add(eventType);
+        }
+        return this;
+      }
+
+      void transitionTo(State target) {
+        transitions.add(new TableTransition(from, via, target));
+      }
+    }
+
+    final class ActionBuilder {
+
+      private Predicate<State> from;
+      private Predicate<State> to;
+      private Set<Class<?>> via;
+
+      private ActionBuilder(Predicate<State> from, Predicate<State> to) {
+        this.from = from;
+        this.to = to;
+      }
+
+      ActionBuilder from(State state) {
+        return from(s -> s == state);
+      }
+
+      ActionBuilder from(Predicate<State> filter) {
+        this.from = filter;
+        return this;
+      }
+
+      ActionBuilder to(State state) {
+        return to(s -> s == state);
+      }
+
+      ActionBuilder to(Predicate<State> filter) {
+        this.to = filter;
+        return this;
+      }
+
+      @SafeVarargs
+      final ActionBuilder via(Class<? extends Event>... eventTypes) {
+        this.via = new HashSet<>();
+        for (Class<? extends Event> eventType : eventTypes) {
+          via.add(eventType);
+        }
+        return this;
+      }
+
+      /**
+       * Match events of any type, including types the table does not otherwise know about.
+       *
+       * @return this {@link ActionBuilder}.
+       */
+      ActionBuilder viaAny() {
+        this.via = null;
+        return this;
+      }
+
+      /**
+       * Execute {@code action} after all previously registered actions.
+       *
+       * @param action the {@link Action} to execute.
+       * @return this {@link ActionBuilder}.
+       */
+      ActionBuilder execute(Action<State, Event> action) {
+        transitionActions.addLast(new TableAction(from, to, via, action));
+        return this;
+      }
+
+      /**
+       * Execute {@code action} before all previously registered actions.
+       *
+       * @param action the {@link Action} to execute.
+       * @return this {@link ActionBuilder}.
+       */
+      ActionBuilder executeFirst(Action<State, Event> action) {
+        transitionActions.addFirst(new TableAction(from, to, via, action));
+        return this;
+      }
+    }
+
+  }
+
+  /**
+   * A {@link Transition} from a single state via a set of event types, evaluated by scanning.
+   */
+  private static final class TableTransition implements Transition<State, Event> {
+
+    private final State from;
+    private final Set<Class<?>> via;
+    private final State target;
+
+    TableTransition(State from, Set<Class<?>> via, State target) {
+      this.from = from;
+      this.via = via;
+      this.target = target;
+    }
+
+    @Override
+    public State target() {
+      return target;
+    }
+
+    @Override
+    public boolean matches(FsmContext<State, Event> ctx, State state, Event event) {
+      return state == from && via.contains(event.getClass());
+    }
+
+  }
+
+  /**
+   * A {@link TransitionAction} matched by scanning: state predicates plus a set of event types,
+   * where a {@code null} set matches any event.
+   */
+  private static final class TableAction implements TransitionAction<State, Event> {
+
+    private final Predicate<State> from;
+    private final Predicate<State> to;
+    private final Set<Class<?>> via;
+    private final Action<State, Event> action;
+
+    TableAction(
+        Predicate<State> from,
+        Predicate<State> to,
+        Set<Class<?>> via,
+        Action<State, Event> action
+    ) {
+
+      this.from = from;
+      this.to = to;
+      this.via = via;
+      this.action = action;
+    }
+
+    @Override
+    public void execute(ActionContext<State, Event> context) {
+      action.execute(context);
+    }
+
+    @Override
+    public boolean matches(State from, State to, Event event) {
+      return this.from.test(from)
+          && this.to.test(to)
+          && (via == null || via.contains(event.getClass()));
+    }
+
+  }
+
+  /**
+   * The transitions and actions of a table compiled into dense arrays.
+   *
+   * <p>Events are mapped to columns by type id; the last column holds event types the table does
+   * not reference, which can only match actions registered with
+   * {@link Builder.ActionBuilder#viaAny()}.
+   */
+  private static final class Index {
+
+    private final int[] columnsByEventTypeId;
+    private final int columnCount;
+
+    /**
+     * Target state, or {@code null} for no transition, indexed by
+     * {@code from * columnCount + column}.
+     */
+    private final State[] targets;
+
+    /**
+     * Actions to execute, in order, indexed by
+     * {@code (from * STATES.length + to) * columnCount + column}.
+     */
+    private final Action<State, Event>[][] actions;
+
+    private final Logger logger;
+    private final Map<String, String> loggingContext;
+
+    @SuppressWarnings("unchecked")
+    Index(
+        List<TableTransition> transitions,
+        List<TableAction> transitionActions,
+        ChannelFsmConfig config
+    ) {
+
+      var eventTypes = new ArrayList<Class<?>>();
+      transitions.forEach(t -> t.via.forEach(c -> addIfAbsent(eventTypes, c)));
+      transitionActions.stream()
+          .filter(a -> a.via != null)
+          .forEach(a -> a.via.forEach(c -> addIfAbsent(eventTypes, c)));
+
+      int maxEventTypeId = eventTypes.stream()
+          .mapToInt(TransitionTable::eventTypeId)
+          .max()
+          .orElse(-1);
+
+      columnCount = eventTypes.size() + 1;
+      columnsByEventTypeId = new int[maxEventTypeId + 1];
+      Arrays.fill(columnsByEventTypeId, columnCount - 1);
+      for (int column = 0; column < eventTypes.size(); column++) {
+        columnsByEventTypeId[eventTypeId(eventTypes.get(column))] = column;
+      }
+
+      targets = new State[STATES.length * columnCount];
+      actions = (Action<State, Event>[][])
+          new Action<?, ?>[STATES.length * STATES.length * columnCount][];
+
+      for (State from : STATES) {
+        for (int column = 0; column < columnCount; column++) {
+          Class<?> eventType = column < eventTypes.size() ? eventTypes.get(column) : null;
+
+          for (TableTransition transition : transitions) {
+            if (transition.from == from
+                && eventType != null
+                && transition.via.contains(eventType)) {
+              targets[from.ordinal() * columnCount + column] = transition.target;
+              break;
+            }
+          }
+
+          for (State to : STATES) {
+            var matching = new ArrayList<Action<State, Event>>();
+
+            for (TableAction action : transitionActions) {
+              if (action.from.test(from)
+                  && action.to.test(to)
+                  && (action.via == null || eventType != null && action.via.contains(eventType))) {
+
+                matching.add(action.action);
+              }
+            }
+
+            actions[(from.ordinal() * STATES.length + to.ordinal()) * columnCount + column] =
+                matching.isEmpty()
+                    ? (Action<State, Event>[]) NO_ACTIONS
+                    : (Action<State, Event>[]) matching.toArray(new Action<?, ?>[0]);
+          }
+        }
+      }
+
+      logger = LoggerFactory.getLogger(config.getLoggerName());
+      loggingContext = config.getLoggingContext();
+    }
+
+    State target(State from, Event event) {
+      State target = targets[from.ordinal() * columnCount + column(event)];
+
+      return target != null ? target : from;
+    }
+
+    Action<State, Event>[] actions(State from, State to, Event event) {
+      return actions[(from.ordinal() * STATES.length + to.ordinal()) * columnCount + column(event)];
+    }
+
+    private int column(Event event) {
+      int id = eventTypeId(event.getClass());
+
+      return id < columnsByEventTypeId.length ? columnsByEventTypeId[id] : columnCount - 1;
+    }
+
+    private static void addIfAbsent(List<Class<?>> eventTypes, Class<?> eventType) {
+      if (!eventTypes.contains(eventType)) {
+        eventTypes.add(eventType);
+      }
+    }
+
+  }
+
+  /**
+   * The only {@link Transition} of a state machine in {@link DispatchMode#INDEXED} mode.
+   *
+   * <p>Always matches; when the table has no transition for the current state and event the
+   * target is the current state, which is what the state machine does when nothing matches.
+   */
+  private static final class IndexedTransition implements Transition<State, Event> {
+
+    private final Index index;
+
+    private State target;
+
+    IndexedTransition(Index index) {
+      this.index = index;
+    }
+
+    @Override
+    public State target() {
+      return target;
+    }
+
+    @Override
+    public boolean matches(FsmContext<State, Event> ctx, State state, Event event) {
+      target = index.target(state, event);
+
+      return true;
+    }
+
+  }
+
+  /**
+   * The only {@link TransitionAction} of a state machine in {@link DispatchMode#INDEXED} mode,
+   * executing the actions the table has for the transition in registration order.
+   */
+  private static final class IndexedTransitionAction implements TransitionAction<State, Event> {
+
+    private final Index index;
+
+    IndexedTransitionAction(Index index) {
+      this.index = index;
+    }
+
+    @Override
+    public void execute(ActionContext<State, Event> context) {
+      Action<State, Event>[] actions = index.actions(context.from(), context.to(), context.event());
+
+      for (Action<State, Event> action : actions) {
+        try {
+          action.execute(context);
+        } catch (Throwable ex) {
+          index.loggingContext.forEach(MDC::put);
+          try {
+            index.logger.warn("uncaught Throwable executing Action: {}", action, ex);
+          } finally {
+            index.loggingContext.keySet().forEach(MDC::remove);
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean matches(State from, State to, Event event) {
+      return index.actions(from, to, event).length > 0;
+    }
+
+  }
+
+  private static class EventTypes {
+
+    private static final List<Class<?>> TYPES = new CopyOnWriteArrayList<>();
+
+    private static final ClassValue<Integer> IDS = new ClassValue<>() {
+      @Override
+      protected Integer computeValue(Class<?> type) {
+        synchronized (TYPES) {
+          TYPES.add(type);
+          return TYPES.size() - 1;
+        }
+      }
+    };
+  }
+
+}
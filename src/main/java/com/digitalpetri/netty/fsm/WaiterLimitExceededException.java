@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+/**
+ * The future returned by {@link ChannelFsm#connect()} or {@link ChannelFsm#getChannel()} failed
+ * immediately because the FSM already had {@link ChannelFsmConfig#getMaxPendingWaiters()} callers
+ * waiting for a Channel.
+ */
+public class WaiterLimitExceededException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int maxPendingWaiters;
+
+  public WaiterLimitExceededException(int maxPendingWaiters) {
+    super("pending waiter limit reached: " + maxPendingWaiters);
+
+    this.maxPendingWaiters = maxPendingWaiters;
+  }
+
+  /**
+   * @return the configured limit on pending waiters that was reached.
+   */
+  public int getMaxPendingWaiters() {
+    return maxPendingWaiters;
+  }
+
+}
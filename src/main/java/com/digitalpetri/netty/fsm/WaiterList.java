@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * Futures waiting on a source future, completed together, in arrival order, when it completes.
+ *
+ * <p>A waiter that completes first, e.g. because its caller cancelled it or it timed out, unlinks
+ * itself right away. Unlike chaining each waiter onto the source with {@code whenComplete}, which
+ * holds every waiter until the source completes, a waiter that has been given up on is left with
+ * nothing referencing it.
+ *
+ * @param <T> the result type.
+ */
+final class WaiterList<T> {
+
+  private final CompletableFuture<T> source;
+
+  /**
+   * The oldest and newest waiters.
+   */
+  private Node head;
+  private Node tail;
+
+  private int size = 0;
+  private boolean completed = false;
+
+  /**
+   * Create a {@link WaiterList} whose waiters are completed when {@code source} completes, on the
+   * thread that completes it.
+   *
+   * @param source the future to wait on.
+   */
+  WaiterList(CompletableFuture<T> source) {
+    this.source = source;
+
+    source.whenComplete(this::completeAll);
+  }
+
+  /**
+   * Complete {@code waiter} with the result of the source future when it completes.
+   *
+   * @param waiter the future to complete.
+   * @param executor the {@link Executor} to complete {@code waiter} on if the source future has
+   *     already completed.
+   */
+  void add(CompletableFuture<T> waiter, Executor executor) {
+    if (waiter.isDone()) {
+      // Given up on before it could be added.
+      return;
+    }
+
+    Node node = new Node(waiter);
+
+    synchronized (this) {
+      if (!completed) {
+        if (tail == null) {
+          head = node;
+        } else {
+          tail.next = node;
+          node.prev = tail;
+        }
+        tail = node;
+        size++;
+      } else {
+        node = null;
+      }
+    }
+
+    if (node != null) {
+      // handle() rather than whenComplete(), which would wrap a failure, e.g. the caller
+      // cancelling, in a new CompletionException for a result nobody reads.
+      waiter.handle(node);
+    } else {
+      executor.execute(() -> source.whenComplete((v, ex) -> complete(waiter, v, ex)));
+    }
+  }
+
+  /**
+   * Get the number of waiters that haven't completed yet.
+   *
+   * @return the number of waiters that haven't completed yet.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  private synchronized void unlink(Node node) {
+    if (completed || node.unlinked) {
+      return;
+    }
+
+    if (node.prev == null) {
+      head = node.next;
+    } else {
+      node.prev.next = node.next;
+    }
+    if (node.next == null) {
+      tail = node.prev;
+    } else {
+      node.next.prev = node.prev;
+    }
+
+    node.prev = null;
+    node.next = null;
+    node.unlinked = true;
+    size--;
+  }
+
+  private void completeAll(T value, Throwable failure) {
+    Node node;
+
+    synchronized (this) {
+      node = head;
+      head = null;
+      tail = null;
+      size = 0;
+      completed = true;
+    }
+
+    // Nodes can no longer be unlinked, so the chain is stable.
+    while (node != null) {
+      complete(node.waiter, value, failure);
+      node = node.next;
+    }
+  }
+
+  private static <T> void complete(CompletableFuture<T> waiter, T value, Throwable failure) {
+    if (failure != null) {
+      waiter.completeExceptionally(failure);
+    } else {
+      waiter.complete(value);
+    }
+  }
+
+  private final class Node implements BiFunction<T, Throwable, Void> {
+
+    final CompletableFuture<T> waiter;
+
+    Node prev;
+    Node next;
+    boolean unlinked = false;
+
+    Node(CompletableFuture<T> waiter) {
+      this.waiter = waiter;
+    }
+
+    @Override
+    public Void apply(T value, Throwable ex) {
+      unlink(this);
+      return null;
+    }
+  }
+
+}
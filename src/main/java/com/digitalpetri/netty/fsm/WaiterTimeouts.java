@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import com.digitalpetri.netty.fsm.Scheduler.Cancellable;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Fails futures that haven't completed by their deadline with a {@link TimeoutException}.
+ *
+ * <p>All the deadlines of one {@link ChannelFsm} share a single scheduled task, for the earliest
+ * of them, rather than scheduling a task per future. A future that completes before its deadline
+ * is forgotten right away.
+ */
+final class WaiterTimeouts {
+
+  private final TreeSet<Deadline> deadlines = new TreeSet<>();
+
+  private final Scheduler scheduler;
+  private final Executor executor;
+
+  private long nextSequence = 0L;
+
+  /**
+   * The task scheduled for {@link #scheduledNanos}, or {@code null} if none is scheduled.
+   */
+  private Cancellable scheduled;
+  private long scheduledNanos;
+
+  WaiterTimeouts(Scheduler scheduler, Executor executor) {
+    this.scheduler = scheduler;
+    this.executor = executor;
+  }
+
+  /**
+   * Fail {@code future} with a {@link TimeoutException} if it hasn't completed within
+   * {@code timeoutNanos}.
+   *
+   * @param future the future to time out.
+   * @param timeoutNanos the timeout, in nanoseconds.
+   */
+  void add(CompletableFuture<?> future, long timeoutNanos) {
+    long deadlineNanos = System.nanoTime() + timeoutNanos;
+
+    Deadline deadline;
+
+    synchronized (this) {
+      deadline = new Deadline(future, deadlineNanos, nextSequence++, timeoutNanos);
+      deadlines.add(deadline);
+
+      if (scheduled == null || deadlineNanos - scheduledNanos < 0) {
+        schedule(deadlineNanos);
+      }
+    }
+
+    future.handle(deadline);
+  }
+
+  /**
+   * Get the number of futures waiting for their deadline.
+   *
+   * @return the number of futures waiting for their deadline.
+   */
+  synchronized int size() {
+    return deadlines.size();
+  }
+
+  /**
+   * Schedule {@link #expire()} for {@code deadlineNanos}. Must be called holding this lock.
+   */
+  private void schedule(long deadlineNanos) {
+    if (scheduled != null) {
+      scheduled.cancel();
+    }
+
+    scheduledNanos = deadlineNanos;
+    scheduled = scheduler.schedule(
+        () -> executor.execute(this::expire),
+        Math.max(0L, deadlineNanos - System.nanoTime()),
+        TimeUnit.NANOSECONDS
+    );
+  }
+
+  private void expire() {
+    long now = System.nanoTime();
+
+    while (true) {
+      Deadline deadline;
+
+      synchronized (this) {
+        deadline = deadlines.isEmpty() ? null : deadlines.first();
+
+        if (deadline == null || deadline.deadlineNanos - now > 0) {
+          scheduled = null;
+          if (deadline != null) {
+            schedule(deadline.deadlineNanos);
+          }
+          return;
+        }
+
+        deadlines.remove(deadline);
+      }
+
+      deadline.future.completeExceptionally(new TimeoutException(
+          "timed out after " + TimeUnit.NANOSECONDS.toMillis(deadline.timeoutNanos) + "ms"));
+    }
+  }
+
+  private synchronized void remove(Deadline deadline) {
+    deadlines.remove(deadline);
+  }
+
+  private final class Deadline
+      implements Comparable<Deadline>, BiFunction<Object, Throwable, Void> {
+
+    final CompletableFuture<?> future;
+    final long deadlineNanos;
+    final long sequence;
+    final long timeoutNanos;
+
+    Deadline(CompletableFuture<?> future, long deadlineNanos, long sequence, long timeoutNanos) {
+      this.future = future;
+      this.deadlineNanos = deadlineNanos;
+      this.sequence = sequence;
+      this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public int compareTo(Deadline other) {
+      int c = Long.compare(deadlineNanos - other.deadlineNanos, 0L);
+      return c != 0 ? c : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public Void apply(Object result, Throwable ex) {
+      remove(this);
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+/**
+ * What to do with a message passed to {@link ChannelFsm#write(Object)} while the FSM isn't
+ * connected and its write queue is full.
+ *
+ * <p>A dropped message is released.
+ *
+ * @see ChannelFsmConfig#getWriteOverflowPolicy()
+ */
+public enum WriteOverflowPolicy {
+
+  /**
+   * Drop the new message.
+   */
+  DROP_NEWEST,
+
+  /**
+   * Drop the oldest queued messages to make room for the new one.
+   */
+  DROP_OLDEST
+
+}
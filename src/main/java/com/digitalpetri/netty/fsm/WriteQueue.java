@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultMessageSizeEstimator;
+import io.netty.channel.EventLoop;
+import io.netty.channel.MessageSizeEstimator;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayDeque;
+
+/**
+ * The messages passed to {@link ChannelFsm#write(Object)} while the FSM isn't connected, bounded
+ * by count and by bytes, and written to the Channel in one batch, with a single flush, once it
+ * is.
+ *
+ * <p>Messages are written in the order they were passed to {@link #write(Object)}: until the
+ * queue has been flushed to a newly connected Channel, new messages are queued behind it rather
+ * than written directly.
+ *
+ * <p>With a {@link WriteSpill}, {@link ByteBuf} messages that don't fit are spilled to it
+ * instead of being subject to the {@link WriteOverflowPolicy}, and replayed after the queue.
+ * Once a message has been spilled, later messages are spilled too, or dropped if they can't be,
+ * so that none is written ahead of it.
+ */
+final class WriteQueue {
+
+  private final ArrayDeque<Object> messages = new ArrayDeque<>();
+
+  private final MessageSizeEstimator.Handle sizeEstimator =
+      DefaultMessageSizeEstimator.DEFAULT.newHandle();
+
+  private final int maxMessages;
+  private final long maxBytes;
+  private final WriteOverflowPolicy overflowPolicy;
+
+  /**
+   * The spill tier, or {@code null} if messages that don't fit are dropped.
+   */
+  private final WriteSpill spill;
+
+  /**
+   * The {@link ChannelFsmMetrics} spills and replays are recorded to, or {@code null}.
+   */
+  private final ChannelFsmMetrics metrics;
+
+  private long bytes = 0L;
+
+  /**
+   * The Channel while the FSM is {@link State#Connected}, {@code null} otherwise.
+   */
+  private Channel connectedChannel;
+
+  /**
+   * {@link #connectedChannel}, once the queue has been flushed to it.
+   */
+  private volatile Channel writeChannel;
+
+  WriteQueue(
+      int maxMessages,
+      long maxBytes,
+      WriteOverflowPolicy overflowPolicy,
+      WriteSpill spill,
+      ChannelFsmMetrics metrics
+  ) {
+
+    this.maxMessages = maxMessages;
+    this.maxBytes = maxBytes;
+    this.overflowPolicy = overflowPolicy;
+    this.spill = spill;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Write and flush {@code msg} if connected, otherwise queue it.
+   *
+   * @param msg the message to write.
+   * @return {@code true} if {@code msg} was written or queued, {@code false} if it was dropped.
+   */
+  boolean write(Object msg) {
+    Channel channel = writeChannel;
+
+    if (channel == null) {
+      synchronized (this) {
+        channel = writeChannel;
+
+        if (channel == null) {
+          return enqueue(msg);
+        }
+      }
+    }
+
+    channel.writeAndFlush(msg, channel.voidPromise());
+    return true;
+  }
+
+  /**
+   * The FSM is {@link State#Connected} to {@code channel}; flush the queue to it.
+   *
+   * @param channel the connected Channel.
+   */
+  void connected(Channel channel) {
+    synchronized (this) {
+      connectedChannel = channel;
+
+      if (size() == 0) {
+        writeChannel = channel;
+        return;
+      }
+    }
+
+    EventLoop eventLoop = channel.eventLoop();
+
+    if (eventLoop.inEventLoop()) {
+      flush(channel);
+    } else {
+      eventLoop.execute(() -> flush(channel));
+    }
+  }
+
+  /**
+   * The FSM is no longer {@link State#Connected}; queue messages until it is again.
+   */
+  synchronized void disconnected() {
+    connectedChannel = null;
+    writeChannel = null;
+  }
+
+  /**
+   * Release every queued message.
+   */
+  void discard() {
+    Object[] discarded;
+
+    synchronized (this) {
+      discarded = messages.toArray();
+      messages.clear();
+      bytes = 0L;
+
+      if (spill != null) {
+        spill.discard();
+      }
+    }
+
+    for (Object msg : discarded) {
+      ReferenceCountUtil.release(msg);
+    }
+  }
+
+  /**
+   * Get the number of queued messages, including spilled messages.
+   *
+   * @return the number of queued messages, including spilled messages.
+   */
+  synchronized int size() {
+    return messages.size() + (spill != null ? spill.size() : 0);
+  }
+
+  private void flush(Channel channel) {
+    boolean written = false;
+
+    while (true) {
+      Object[] batch;
+      ByteBuf[] spilled = null;
+
+      synchronized (this) {
+        if (connectedChannel != channel) {
+          // Disconnected before the queue was flushed; keep what's left for the next Channel.
+          break;
+        }
+        if (size() == 0) {
+          writeChannel = channel;
+          break;
+        }
+
+        batch = messages.toArray();
+        messages.clear();
+        bytes = 0L;
+
+        if (spill != null && spill.size() > 0) {
+          spilled = spill.replay();
+        }
+      }
+
+      for (Object msg : batch) {
+        channel.write(msg, channel.voidPromise());
+      }
+      if (spilled != null) {
+        replay(channel, spilled);
+      }
+      written = true;
+    }
+
+    if (written) {
+      channel.flush();
+    }
+  }
+
+  /**
+   * Write the slices taken from {@link #spill}, and let it be reused once the last one has been
+   * written.
+   */
+  private void replay(Channel channel, ByteBuf[] spilled) {
+    long startNanos = System.nanoTime();
+
+    long replayBytes = 0L;
+    for (ByteBuf msg : spilled) {
+      replayBytes += msg.readableBytes();
+    }
+
+    for (int i = 0; i < spilled.length - 1; i++) {
+      channel.write(spilled[i], channel.voidPromise());
+    }
+
+    long totalBytes = replayBytes;
+    ChannelPromise promise = channel.newPromise();
+    promise.addListener(f -> {
+      synchronized (this) {
+        spill.replayed();
+      }
+      if (metrics != null) {
+        metrics.recordWriteReplay(totalBytes, System.nanoTime() - startNanos);
+      }
+    });
+
+    channel.write(spilled[spilled.length - 1], promise);
+  }
+
+  /**
+   * Must be called holding this lock.
+   */
+  private boolean enqueue(Object msg) {
+    int size = Math.max(0, sizeEstimator.size(msg));
+
+    if (spill != null && (spill.size() > 0 || !fits(size))) {
+      if (msg instanceof ByteBuf && spill((ByteBuf) msg)) {
+        ReferenceCountUtil.release(msg);
+        return true;
+      }
+      if (spill.size() > 0) {
+        // Can't be queued ahead of the messages already spilled.
+        ReferenceCountUtil.release(msg);
+        return false;
+      }
+    }
+
+    // Don't evict anything for a message that wouldn't fit even in an empty queue.
+    if (overflowPolicy == WriteOverflowPolicy.DROP_OLDEST && maxMessages > 0 && size <= maxBytes) {
+      while (!messages.isEmpty() && !fits(size)) {
+        Object oldest = messages.removeFirst();
+        bytes -= Math.max(0, sizeEstimator.size(oldest));
+        ReferenceCountUtil.release(oldest);
+      }
+    }
+
+    if (!fits(size)) {
+      ReferenceCountUtil.release(msg);
+      return false;
+    }
+
+    messages.addLast(msg);
+    bytes += size;
+    return true;
+  }
+
+  /**
+   * Must be called holding this lock.
+   */
+  private boolean spill(ByteBuf msg) {
+    long startNanos = System.nanoTime();
+
+    if (!spill.append(msg)) {
+      return false;
+    }
+
+    if (metrics != null) {
+      metrics.recordWriteSpill(msg.readableBytes(), System.nanoTime() - startNanos);
+    }
+    return true;
+  }
+
+  private boolean fits(int size) {
+    return messages.size() < maxMessages && bytes + size <= maxBytes;
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+
+/**
+ * An append-only segment of a memory-mapped file that {@link ByteBuf} messages are copied into
+ * when a {@link WriteQueue} is full, and replayed from, as slices of the mapping, once the FSM is
+ * connected again.
+ *
+ * <p>Each message is stored as a 4 byte length followed by its readable bytes. The file is
+ * created, and mapped, the first time a message is spilled, and deleted right away. The mapping
+ * is released by {@link #discard()}, once any replay in progress has been written, and unmapped
+ * when it's garbage collected; the next message spilled maps a new file.
+ *
+ * <p>Not thread safe; guarded by the {@link WriteQueue} lock.
+ */
+final class WriteSpill {
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final Logger logger;
+
+  /**
+   * The mapped segment; readable bytes are the spilled messages not yet replayed. {@code null}
+   * until the first message is spilled.
+   */
+  private ByteBuf segment;
+
+  private int messageCount = 0;
+  private boolean replaying = false;
+  private boolean releaseAfterReplay = false;
+  private boolean failed = false;
+
+  WriteSpill(Path directory, int segmentBytes, Logger logger) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.logger = logger;
+  }
+
+  /**
+   * Copy {@code msg} into the segment. {@code msg} is not released.
+   *
+   * @param msg the message to spill.
+   * @return {@code true} if {@code msg} was spilled, {@code false} if it doesn't fit, or the
+   *     segment is being replayed or couldn't be mapped.
+   */
+  boolean append(ByteBuf msg) {
+    if (replaying || (segment == null && !map())) {
+      return false;
+    }
+
+    int length = msg.readableBytes();
+
+    if (segment.writableBytes() < Integer.BYTES + length) {
+      return false;
+    }
+
+    segment.writeInt(length);
+    segment.writeBytes(msg, msg.readerIndex(), length);
+    messageCount++;
+    return true;
+  }
+
+  /**
+   * Get the number of spilled messages that haven't been taken by {@link #replay()}.
+   *
+   * @return the number of spilled messages that haven't been taken by {@link #replay()}.
+   */
+  int size() {
+    return messageCount;
+  }
+
+  /**
+   * Take every spilled message, as a retained slice of the segment, in the order spilled.
+   *
+   * <p>Nothing can be spilled until {@link #replayed()} is called, once the slices have been
+   * written and released.
+   *
+   * @return the spilled messages.
+   */
+  ByteBuf[] replay() {
+    ByteBuf[] messages = new ByteBuf[messageCount];
+
+    for (int i = 0; i < messages.length; i++) {
+      int length = segment.readInt();
+      messages[i] = segment.readRetainedSlice(length);
+    }
+
+    messageCount = 0;
+    replaying = true;
+    return messages;
+  }
+
+  /**
+   * The slices taken by {@link #replay()} have been written; the segment can be reused.
+   */
+  void replayed() {
+    replaying = false;
+
+    if (releaseAfterReplay) {
+      releaseAfterReplay = false;
+      release();
+    } else {
+      segment.clear();
+    }
+  }
+
+  /**
+   * Forget every spilled message that hasn't been taken by {@link #replay()} and release the
+   * mapping, or, if a replay is in progress, release it once {@link #replayed()} is called.
+   */
+  void discard() {
+    messageCount = 0;
+
+    if (replaying) {
+      releaseAfterReplay = true;
+    } else {
+      release();
+    }
+  }
+
+  private void release() {
+    if (segment != null) {
+      // The file is already gone; the mapping is unmapped once nothing references it.
+      segment.release();
+      segment = null;
+    }
+  }
+
+  private boolean map() {
+    if (failed) {
+      return false;
+    }
+
+    try {
+      Path file = Files.createTempFile(directory, "channel-fsm-", ".spill");
+
+      // Deleted on close; the mapping stays valid until it's garbage collected.
+      try (FileChannel fileChannel = FileChannel.open(
+          file,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE
+      )) {
+
+        segment = Unpooled.wrappedBuffer(
+            fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes)
+        ).clear();
+      }
+
+      return true;
+    } catch (IOException e) {
+      logger.warn("failed to map write spill segment in {}", directory, e);
+      failed = true;
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+class ChannelFsmFactoryTest {
+
+    @Test
+    fun `ChannelFsms from the same factory have independent state`() {
+        val factory = factory(scheduler = TestScheduler())
+
+        val fsm1 = factory.newChannelFsm()
+        val fsm2 = factory.newChannelFsm()
+
+        val transitions1 = AtomicInteger(0)
+        val transitions2 = AtomicInteger(0)
+        fsm1.addTransitionListener { _, _, _ -> transitions1.incrementAndGet() }
+        fsm2.addTransitionListener { _, _, _ -> transitions2.incrementAndGet() }
+
+        assertWithTimeout {
+            assertNotNull(fsm1.connect().get())
+        }
+
+        assertEquals(State.Connected, fsm1.state)
+        assertEquals(State.NotConnected, fsm2.state)
+        assertNotNull(fsm1.channelNow)
+        assertNull(fsm2.channelNow)
+
+        assertEquals(2, transitions1.get())
+        assertEquals(0, transitions2.get())
+
+        fsm1.fsm.getFromContext { ctx ->
+            assertSame(fsm1, ChannelFsm.KEY_FSM.get(ctx))
+            assertNotNull(ChannelFsm.KEY_CF.get(ctx))
+        }
+        fsm2.fsm.getFromContext { ctx ->
+            assertSame(fsm2, ChannelFsm.KEY_FSM.get(ctx))
+            assertNull(ChannelFsm.KEY_CF.get(ctx))
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import io.netty.channel.embedded.EmbeddedChannel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ChannelFsmGroupTest {
+
+    @Test
+    fun `connectAll connects every member with bounded parallelism`() {
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val connected = ConcurrentHashMap.newKeySet<Any>()
+        val delayer = Executors.newSingleThreadScheduledExecutor()
+
+        val channelActions = object : ChannelActions {
+            override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                connected.add(ctx.userContext)
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), ::maxOf)
+
+                val future = CompletableFuture<Channel>()
+                delayer.schedule({
+                    inFlight.decrementAndGet()
+                    future.complete(EmbeddedChannel())
+                }, 1, TimeUnit.MILLISECONDS)
+                return future
+            }
+
+            override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                return channel.close().let { CompletableFuture.completedFuture(null) }
+            }
+        }
+
+        val group = ChannelFsmGroup(
+            ChannelFsmGroup.newConfigBuilder()
+                .setChannelActions(channelActions)
+                .build()
+        )
+
+        (0 until 100).forEach { group.add(it) }
+        assertEquals(100, group.size())
+        assertEquals(100, group.getCount(State.NotConnected))
+
+        group.connectAll(4).get(5, TimeUnit.SECONDS)
+
+        assertEquals((0 until 100).toSet(), connected)
+        assertTrue(maxInFlight.get() <= 4)
+
+        assertWithTimeout {
+            while (group.getCount(State.Connected) != 100L) Thread.sleep(1)
+        }
+        assertEquals(0, group.getCount(State.NotConnected))
+        assertEquals(100L, group.stateCounts.values.sum())
+
+        group.disconnectAll(8).get(5, TimeUnit.SECONDS)
+
+        assertWithTimeout {
+            while (group.getCount(State.NotConnected) != 100L) Thread.sleep(1)
+        }
+        assertEquals(0, group.getCount(State.Connected))
+
+        delayer.shutdown()
+    }
+
+    @Test
+    fun `Removed members are no longer counted`() {
+        val group = ChannelFsmGroup(
+            ChannelFsmGroup.newConfigBuilder()
+                .setChannelActions(object : ChannelActions {
+                    override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                        return CompletableFuture.completedFuture(EmbeddedChannel())
+                    }
+
+                    override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                        return CompletableFuture.completedFuture(null)
+                    }
+                })
+                .build()
+        )
+
+        val a = group.add("a")
+        val b = group.add("b")
+
+        a.connect().get()
+        b.connect().get()
+
+        assertWithTimeout {
+            while (group.getCount(State.Connected) != 2L) Thread.sleep(1)
+        }
+
+        group.remove(a).get()
+
+        assertWithTimeout(Duration.ofSeconds(1)) {
+            while (group.getCount(State.Connected) != 1L) Thread.sleep(1)
+        }
+        assertEquals(1, group.size())
+        assertEquals(1L, group.stateCounts.values.sum())
+
+        // Not a member anymore; completes immediately.
+        assertTrue(group.remove(a).isDone)
+    }
+
+}
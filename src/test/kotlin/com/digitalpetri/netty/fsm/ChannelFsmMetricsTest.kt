@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import io.netty.channel.embedded.EmbeddedChannel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.lang.Thread.sleep
+import java.util.concurrent.CompletableFuture
+
+class ChannelFsmMetricsTest {
+
+    @Test
+    fun `Histogram percentiles are within bucket precision`() {
+        val histogram = Histogram()
+
+        (1L..10_000L).forEach { histogram.record(it * 1000) }
+
+        assertEquals(10_000, histogram.count)
+        assertEquals(10_000_000, histogram.max)
+        assertEquals((1L..10_000L).sum() * 1000, histogram.sum)
+
+        listOf(50.0, 90.0, 99.0, 99.9).forEach { p ->
+            val expected = (p / 100.0 * 10_000_000).toLong()
+            val actual = histogram.getValueAtPercentile(p)
+            assertTrue(actual >= expected, "p$p: $actual < $expected")
+            assertTrue(actual <= expected + expected / Histogram.SUB_BUCKET_COUNT, "p$p: $actual")
+        }
+
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100.0))
+    }
+
+    @Test
+    fun `Histogram bucket bounds cover every value`() {
+        listOf(0L, 1L, 15L, 16L, 17L, 1023L, 1024L, 123_456_789L, Long.MAX_VALUE).forEach { v ->
+            val index = Histogram.bucketIndex(v)
+            assertTrue(Histogram.bucketLowerBound(index) <= v, "$v")
+            assertTrue(Histogram.bucketUpperBound(index) >= v, "$v")
+        }
+    }
+
+    @Test
+    fun `TransitionMetrics counts transitions and records dwell times`() {
+        val metrics = TransitionMetrics()
+
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(factoryChannelActions())
+            .setMetrics(metrics)
+            .build()
+
+        val fsm = ChannelFsmFactory(config).newChannelFsm()
+
+        fsm.connect().get()
+        sleep(10)
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        // disconnect() doesn't fire an event when already NotConnected.
+        fsm.fsm.fireEventBlocking(Event.Disconnect())
+
+        assertEquals(1, metrics.getTransitionCount(State.NotConnected, State.Connecting, Event.Connect::class.java))
+        assertEquals(
+            1,
+            metrics.getTransitionCount(State.Connecting, State.Connected, Event.ConnectSuccess::class.java)
+        )
+        assertEquals(1, metrics.getTransitionCount(State.Connected, State.Disconnecting))
+        assertEquals(
+            1,
+            metrics.getTransitionCount(State.NotConnected, State.NotConnected, Event.Disconnect::class.java)
+        )
+
+        assertEquals(1, metrics.getDwellHistogram(State.Connecting).count)
+        assertEquals(1, metrics.getDwellHistogram(State.Connected).count)
+        assertTrue(metrics.getDwellHistogram(State.Connected).max >= 10_000_000)
+        assertEquals(1, metrics.getDwellHistogram(State.NotConnected).count)
+    }
+
+    @Test
+    fun `TransitionMetrics records connect latency by phase`() {
+        val metrics = TransitionMetrics()
+
+        val channelActions = object : ChannelActions {
+            override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                return CompletableFuture.supplyAsync {
+                    sleep(5)
+                    ChannelFsm.recordConnectPhase(ctx, ConnectPhase.TRANSPORT_CONNECT)
+                    sleep(20)
+                    ChannelFsm.recordConnectPhase(ctx, ConnectPhase.APPLICATION_HANDSHAKE)
+                    EmbeddedChannel()
+                }
+            }
+
+            override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                return CompletableFuture.completedFuture(null)
+            }
+        }
+
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(channelActions)
+            .setMetrics(metrics)
+            .build()
+
+        val fsm = ChannelFsmFactory(config).newChannelFsm()
+        fsm.connect().get()
+
+        assertEquals(1, metrics.connectSuccessHistogram.count)
+        assertEquals(0, metrics.connectFailureHistogram.count)
+        assertTrue(metrics.connectSuccessHistogram.max >= 25_000_000)
+
+        val transport = metrics.getConnectPhaseHistogram(ConnectPhase.TRANSPORT_CONNECT)
+        val tls = metrics.getConnectPhaseHistogram(ConnectPhase.TLS_HANDSHAKE)
+        val application = metrics.getConnectPhaseHistogram(ConnectPhase.APPLICATION_HANDSHAKE)
+
+        assertEquals(1, transport.count)
+        assertEquals(0, tls.count)
+        assertEquals(1, application.count)
+        assertTrue(transport.max >= 5_000_000)
+        assertTrue(application.max >= 20_000_000)
+
+        fsm.disconnect().get()
+    }
+
+    private fun factoryChannelActions() = object : ChannelActions {
+        override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+            return connectDelegate(true).connect(ctx)
+        }
+
+        override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+            return disconnectDelegate(true).disconnect(ctx, channel)
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import io.netty.buffer.Unpooled
+import io.netty.channel.Channel
+import io.netty.channel.WriteBufferWaterMark
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.lang.Thread.sleep
+import java.time.Duration
+
+class ChannelFsmPoolTest {
+
+    @Test
+    fun `ROUND_ROBIN picks each Connected member in turn`() {
+        val pool = ChannelFsmPool.newBuilder(factory())
+            .setMinSize(3)
+            .setMaxSize(3)
+            .build()
+
+        awaitConnected(pool, 3)
+
+        val channels = (0 until 6).map { pool.channel.get() }
+
+        assertEquals(3, channels.toSet().size)
+        assertEquals(channels.subList(0, 3), channels.subList(3, 6))
+
+        pool.close().get()
+    }
+
+    @Test
+    fun `LEAST_PENDING_WRITES picks the member with the fewest pending bytes`() {
+        val pool = ChannelFsmPool.newBuilder(factory())
+            .setMinSize(3)
+            .setMaxSize(3)
+            .setSelectionStrategy(ChannelFsmPool.SelectionStrategy.LEAST_PENDING_WRITES)
+            .build()
+
+        awaitConnected(pool, 3)
+
+        val channels = (0 until 3).map { pool.channel.get() }.toSet()
+        assertEquals(1, channels.size)
+
+        val busy = channels.first()
+        busy.write(Unpooled.wrappedBuffer(ByteArray(1024)))
+
+        val next = pool.channel.get()
+        assertNotSame(busy, next)
+
+        pool.close().get()
+    }
+
+    @Test
+    fun `POWER_OF_TWO_CHOICES never picks the busier of two members`() {
+        val pool = ChannelFsmPool.newBuilder(factory())
+            .setMinSize(2)
+            .setMaxSize(2)
+            .setSelectionStrategy(ChannelFsmPool.SelectionStrategy.POWER_OF_TWO_CHOICES)
+            .build()
+
+        awaitConnected(pool, 2)
+
+        val busy = pool.channel.get()
+        busy.write(Unpooled.wrappedBuffer(ByteArray(1024)))
+
+        repeat(10) {
+            assertNotSame(busy, pool.channel.get())
+        }
+
+        pool.close().get()
+    }
+
+    @Test
+    fun `Members that are not Connected are skipped`() {
+        val pool = ChannelFsmPool.newBuilder(factory(scheduler = TestScheduler()))
+            .setMinSize(2)
+            .setMaxSize(2)
+            .build()
+
+        awaitConnected(pool, 2)
+
+        val closed = pool.channel.get()
+        closed.close()
+
+        assertWithTimeout {
+            while (pool.connectedCount != 1) sleep(1)
+        }
+
+        repeat(4) {
+            assertNotSame(closed, pool.channel.get())
+        }
+
+        pool.close().get()
+    }
+
+    @Test
+    fun `Pool grows when no member is writable and shrinks back without demand`() {
+        val pool = ChannelFsmPool.newBuilder(factory())
+            .setMinSize(1)
+            .setMaxSize(2)
+            .setIdleTimeout(Duration.ofMillis(100))
+            .build()
+
+        awaitConnected(pool, 1)
+
+        val first: Channel = pool.channel.get()
+        first.config().writeBufferWaterMark = WriteBufferWaterMark(8, 16)
+        first.write(Unpooled.wrappedBuffer(ByteArray(32)))
+        assertFalse(first.isWritable)
+
+        pool.channel.get()
+        assertEquals(2, pool.size())
+
+        awaitConnected(pool, 2)
+        assertNotSame(first, pool.channel.get())
+
+        assertWithTimeout(Duration.ofSeconds(2)) {
+            while (pool.size() != 1) sleep(10)
+        }
+
+        pool.close().get()
+        assertEquals(0, pool.size())
+    }
+
+    @Test
+    fun `Pool shrinks under a trickle of traffic that picks every member`() {
+        val pool = ChannelFsmPool.newBuilder(factory())
+            .setMinSize(1)
+            .setMaxSize(2)
+            .setIdleTimeout(Duration.ofMillis(100))
+            .build()
+
+        awaitConnected(pool, 1)
+
+        val first: Channel = pool.channel.get()
+        first.config().writeBufferWaterMark = WriteBufferWaterMark(8, 16)
+        first.write(Unpooled.wrappedBuffer(ByteArray(32)))
+
+        pool.channel.get()
+        awaitConnected(pool, 2)
+
+        // The burst is over; both members are writable again.
+        first.flush()
+        assertTrue(first.isWritable)
+
+        // ROUND_ROBIN picks both members, but one is always spare.
+        assertWithTimeout(Duration.ofSeconds(2)) {
+            while (pool.size() != 1) {
+                pool.channel.get()
+                sleep(10)
+            }
+        }
+
+        pool.close().get()
+    }
+
+    private fun awaitConnected(pool: ChannelFsmPool, count: Int) {
+        assertWithTimeout {
+            while (pool.connectedCount < count) sleep(1)
+        }
+    }
+
+}
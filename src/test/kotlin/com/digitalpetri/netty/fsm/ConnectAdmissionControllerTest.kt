@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import io.netty.channel.embedded.EmbeddedChannel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.lang.Thread.sleep
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+
+class ConnectAdmissionControllerTest {
+
+    @Test
+    fun `maxInFlight limits admitted attempts and admits waiters in order`() {
+        val controller = ConnectAdmissionController(Double.POSITIVE_INFINITY, 1, 1)
+
+        val p1 = controller.acquire()
+        val p2 = controller.acquire()
+        val p3 = controller.acquire()
+
+        assertTrue(p1.isDone)
+        assertFalse(p2.isDone)
+        assertFalse(p3.isDone)
+        assertEquals(2, controller.queueDepth)
+        assertEquals(1, controller.inFlight)
+
+        p1.get().release()
+        p1.get().release() // no effect
+
+        assertTrue(p2.isDone)
+        assertFalse(p3.isDone)
+        assertEquals(1, controller.queueDepth)
+        assertEquals(1, controller.inFlight)
+
+        p2.get().release()
+        p3.get().release()
+
+        assertEquals(0, controller.queueDepth)
+        assertEquals(0, controller.inFlight)
+        assertEquals(3, controller.admittedCount)
+        assertTrue(controller.maxWaitNanos > 0)
+        assertTrue(controller.totalWaitNanos >= controller.maxWaitNanos)
+    }
+
+    @Test
+    fun `Cancelled waiters leave the queue without taking a permit`() {
+        val controller = ConnectAdmissionController(Double.POSITIVE_INFINITY, 1, 1)
+
+        val p1 = controller.acquire()
+        val p2 = controller.acquire()
+        val p3 = controller.acquire()
+        assertEquals(2, controller.queueDepth)
+
+        assertTrue(p2.cancel(false))
+        assertEquals(1, controller.queueDepth)
+
+        p1.get().release()
+
+        // p3 is admitted next; the cancelled waiter took no slot.
+        assertTrue(p3.isDone)
+        assertEquals(0, controller.queueDepth)
+        assertEquals(1, controller.inFlight)
+        assertEquals(2, controller.admittedCount)
+
+        p3.get().release()
+        assertEquals(0, controller.inFlight)
+    }
+
+    @Test
+    fun `connectsPerSecond limits the admission rate`() {
+        val controller = ConnectAdmissionController(20.0, 1, Int.MAX_VALUE)
+
+        val p1 = controller.acquire()
+        val p2 = controller.acquire()
+
+        assertTrue(p1.isDone)
+        assertFalse(p2.isDone)
+
+        // 20/s refills one token every 50ms
+        assertWithTimeout {
+            p2.get()
+        }
+
+        assertTrue(controller.maxWaitNanos >= 40_000_000L, "maxWaitNanos=${controller.maxWaitNanos}")
+    }
+
+    @Test
+    fun `ChannelFsms sharing a controller are admitted one at a time`() {
+        val controller = ConnectAdmissionController(Double.POSITIVE_INFINITY, 1, 1)
+
+        val connects = CopyOnWriteArrayList<CompletableFuture<Channel>>()
+
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> =
+                    CompletableFuture<Channel>().also { connects.add(it) }
+
+                override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel) =
+                    CompletableFuture.completedFuture<Void>(null)
+            })
+            .setConnectAdmissionController(controller)
+            .setExecutor(Executors.newSingleThreadExecutor())
+            .build()
+
+        val factory = ChannelFsmFactory(config)
+        val fsm1 = factory.newChannelFsm()
+        val fsm2 = factory.newChannelFsm()
+
+        val f1 = fsm1.connect()
+        val f2 = fsm2.connect()
+
+        assertWithTimeout {
+            while (connects.size < 1 || controller.queueDepth < 1) sleep(1)
+        }
+        sleep(10)
+        assertEquals(1, connects.size)
+
+        connects[0].complete(EmbeddedChannel())
+        assertWithTimeout {
+            while (connects.size < 2) sleep(1)
+        }
+        connects[1].complete(EmbeddedChannel())
+
+        assertWithTimeout {
+            f1.get()
+            f2.get()
+        }
+        assertEquals(0, controller.inFlight)
+    }
+
+}
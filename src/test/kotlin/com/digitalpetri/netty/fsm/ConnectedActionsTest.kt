@@ -14,9 +14,15 @@ import com.digitalpetri.fsm.FsmContext
 import io.netty.channel.Channel
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import java.time.Duration
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletableFuture.completedFuture
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
 
 
 class ConnectedActionsTest {
@@ -147,4 +153,99 @@ class ConnectedActionsTest {
         assertFalse { channel.isOpen }
     }
 
+    @Test
+    fun `getChannelNow() returns the Channel only while CONNECTED`() {
+        val connectDelegate = TestConnectProxy()
+
+        val fsm: ChannelFsm = factory(connectProxy = connectDelegate, scheduler = TestScheduler())
+            .newChannelFsm(State.NotConnected)
+
+        assertNull(fsm.channelNow)
+
+        fsm.fsm.fireEventBlocking(Event.Connect())
+        assertNull(fsm.channelNow)
+
+        connectDelegate.success()
+        assertEventualState(fsm, State.Connected)
+
+        val channel = fsm.channel.get()
+        assertSame(channel, fsm.channelNow)
+        assertSame(fsm.channel, fsm.getChannel(false))
+
+        assertEquals(State.ReconnectWait, fsm.fsm.fireEventBlocking(Event.ChannelInactive()))
+        assertNull(fsm.channelNow)
+    }
+
+    @Test
+    fun `connect() while CONNECTED returns the current connection without firing an event`() {
+        val fsm: ChannelFsm = factory(scheduler = TestScheduler()).newChannelFsm()
+
+        val channel = fsm.connect().get()
+        assertEventualState(fsm, State.Connected)
+
+        val transitions = AtomicInteger(0)
+        fsm.addTransitionListener { _, _, _ -> transitions.incrementAndGet() }
+
+        val future = fsm.connect()
+
+        assertTrue(future.isDone)
+        assertSame(channel, future.get())
+        assertEquals(0, transitions.get())
+
+        // Each caller gets its own copy; mutating one doesn't affect later callers.
+        fsm.connect().obtrudeException(Exception("poisoned"))
+        assertSame(channel, fsm.connect().get())
+        assertSame(channel, fsm.channel.get())
+    }
+
+    @Test
+    fun `getChannel(Duration ZERO) right after ConnectSuccess doesn't fail the shared future`() {
+        val queued = LinkedBlockingDeque<Runnable>()
+
+        val fsm: ChannelFsm = factory(
+            executor = Executor { queued.add(it) },
+            scheduler = Scheduler { command, _, _ ->
+                command.run()
+                Scheduler.Cancellable { false }
+            }
+        ).newChannelFsm(State.NotConnected)
+
+        fsm.connect()
+
+        while (fsm.fsm.state != State.Connected) {
+            queued.removeFirst().run()
+        }
+
+        // Connected, but the shared future hasn't been completed yet.
+        val timed = fsm.getChannel(Duration.ZERO)
+
+        // Let the timeout expire before the shared future is completed.
+        while (queued.isNotEmpty()) {
+            queued.removeLast().run()
+        }
+
+        val ex = assertThrows(ExecutionException::class.java) { timed.get() }
+        assertTrue(ex.cause is TimeoutException)
+
+        assertNotNull(fsm.getChannel(false).get())
+        assertNotNull(fsm.connect().get())
+    }
+
+    @Test
+    fun `Channel closed while CONNECTED fires the shared ChannelInactive instance`() {
+        val fsm: ChannelFsm = factory(scheduler = TestScheduler())
+            .newChannelFsm(State.NotConnected)
+
+        val inactive = CompletableFuture<Event>()
+        fsm.addTransitionListener { _, to, via ->
+            if (to == State.ReconnectWait) inactive.complete(via)
+        }
+
+        fsm.connect().get().close()
+
+        assertWithTimeout {
+            assertSame(Event.ChannelInactive.INSTANCE, inactive.get())
+        }
+    }
+
 }
@@ -13,11 +13,17 @@ package com.digitalpetri.netty.fsm
 import com.digitalpetri.fsm.FsmContext
 import com.digitalpetri.netty.fsm.ChannelFsm.KEY_CF
 import io.netty.channel.Channel
+import io.netty.channel.ConnectTimeoutException
+import io.netty.channel.embedded.EmbeddedChannel
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
 import java.lang.Thread.sleep
+import java.time.Duration
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
 
 
 class ConnectingActionsTest {
@@ -64,6 +70,69 @@ class ConnectingActionsTest {
         }
     }
 
+    @Test
+    fun `Pending waiters are completed in a single executor task`() {
+        val connectDelegate = TestConnectProxy()
+        val tasks = AtomicInteger(0)
+        val delegate = Executors.newSingleThreadExecutor()
+
+        val fsm = factory(
+            connectProxy = connectDelegate,
+            executor = { command ->
+                tasks.incrementAndGet()
+                delegate.execute(command)
+            }
+        ).newChannelFsm(State.NotConnected)
+
+        fsm.fsm.fireEventBlocking(Event.Connect())
+
+        val events = MutableList(1000) { Event.GetChannel() }
+        events.forEach { fsm.fsm.fireEventBlocking(it) }
+
+        val tasksBefore = tasks.get()
+        connectDelegate.success()
+
+        events.forEach {
+            assertWithTimeout {
+                assertNotNull(it.channelFuture.get())
+            }
+        }
+
+        // One task completes the ConnectFuture, and with it every waiter; the rest are
+        // unrelated to the number of waiters.
+        assertTrue(tasks.get() - tasksBefore < 10, "${tasks.get() - tasksBefore} tasks")
+    }
+
+    @Test
+    fun `Waiters over maxPendingWaiters fail immediately`() {
+        val connectDelegate = TestConnectProxy()
+
+        val fsm = factory(connectProxy = connectDelegate, maxPendingWaiters = 3)
+            .newChannelFsm(State.NotConnected)
+
+        val waiters = listOf(fsm.connect(), fsm.channel, fsm.channel)
+        assertEventualState(fsm, State.Connecting)
+        assertEquals(3, fsm.pendingWaiterCount)
+
+        val rejected = listOf(fsm.connect(), fsm.channel)
+        rejected.forEach {
+            assertTrue(it.isCompletedExceptionally)
+            val ex = assertThrows(ExecutionException::class.java) { it.get() }
+            assertTrue(ex.cause is WaiterLimitExceededException)
+        }
+        assertEquals(3, fsm.pendingWaiterCount)
+
+        connectDelegate.success()
+
+        assertWithTimeout {
+            waiters.forEach { assertNotNull(it.get()) }
+        }
+        assertEquals(0, fsm.pendingWaiterCount)
+
+        // Connected; getChannel() doesn't wait and isn't limited.
+        repeat(5) { assertNotNull(fsm.channel.get()) }
+    }
+
     @Test
     fun `Internal transition via GetChannel`() {
         val connectDelegate = TestConnectProxy()
@@ -89,39 +158,164 @@ class ConnectingActionsTest {
     }
 
     @Test
-    fun `Internal transition via Disconnect`() {
-        val connectDelegate = TestConnectProxy()
-
-        val disconnectFuture = CompletableFuture<Void>()
+    fun `Disconnect cancels the connect attempt and transitions to NOT_CONNECTED`() {
+        val connectFuture = CompletableFuture<Channel>()
+        val cancelled = CompletableFuture<Unit>()
 
-        val disconnectDelegate = object : DisconnectProxy {
-            override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
-                return disconnectFuture
+        val fsm = factory(
+            connectProxy = object : ConnectProxy {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                    ChannelFsm.onConnectCancelled(ctx) { cancelled.complete(Unit) }
+                    return connectFuture
+                }
             }
+        ).newChannelFsm(State.NotConnected)
+
+        val connect = fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        // the Disconnect doesn't wait for the connect attempt to complete...
+        val disconnect = fsm.disconnect()
+
+        assertWithTimeout {
+            disconnect.get()
+            cancelled.get()
         }
+        assertEquals(State.NotConnected, fsm.state)
+
+        val ex = assertThrows(ExecutionException::class.java) { connect.get() }
+        assertEquals("client disconnected", ex.cause?.message)
+
+        // ...and a Channel that arrives late is closed rather than used.
+        val late = EmbeddedChannel()
+        connectFuture.complete(late)
+
+        assertWithTimeout {
+            while (late.isOpen) sleep(1)
+        }
+        sleep(50)
+        assertEquals(State.NotConnected, fsm.state)
+    }
+
+    @Test
+    fun `Connect attempt that exceeds connectTimeoutMillis fails and is cancelled`() {
+        val connectFuture = CompletableFuture<Channel>()
+        val cancelled = CompletableFuture<Unit>()
+
+        val fsm = factory(
+            connectProxy = object : ConnectProxy {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                    ChannelFsm.onConnectCancelled(ctx) { cancelled.complete(Unit) }
+                    return connectFuture
+                }
+            },
+            scheduler = Scheduler.fromScheduledExecutor(Executors.newSingleThreadScheduledExecutor()),
+            connectTimeoutMillis = 50
+        ).newChannelFsm(State.NotConnected)
+
+        val connect = fsm.connect()
+
+        assertWithTimeout {
+            val ex = assertThrows(ExecutionException::class.java) { connect.get() }
+            assertTrue(ex.cause is ConnectTimeoutException)
+            cancelled.get()
+        }
+        assertEventualState(fsm, State.NotConnected)
+
+        val late = EmbeddedChannel()
+        connectFuture.complete(late)
+        assertFalse(late.isOpen)
+    }
+
+    @Test
+    fun `getChannel(Duration) times out and stops waiting`() {
+        val connectDelegate = TestConnectProxy()
 
         val fsm = factory(
             connectProxy = connectDelegate,
-            disconnectProxy = disconnectDelegate
+            scheduler = Scheduler.fromScheduledExecutor(Executors.newSingleThreadScheduledExecutor())
         ).newChannelFsm(State.NotConnected)
 
-        fsm.fsm.fireEvent(Event.Connect())
+        val connect = fsm.connect()
+        assertEventualState(fsm, State.Connecting)
 
-        val event = Event.Disconnect()
-        assertEquals(State.Connecting, fsm.fsm.fireEventBlocking(event))
+        val timedOut = (0 until 10).map { fsm.getChannel(Duration.ofMillis(50)) }
+        val cancelled = (0 until 10).map { fsm.channel }
+        val waiting = fsm.getChannel(Duration.ofMinutes(1))
+
+        cancelled.forEach { it.cancel(false) }
+
+        assertWithTimeout {
+            timedOut.forEach {
+                val ex = assertThrows(ExecutionException::class.java) { it.get() }
+                assertTrue(ex.cause is TimeoutException)
+            }
+        }
+
+        // only connect() and the 1 minute getChannel() are still waiting...
+        assertWithTimeout {
+            while (waiterCount(fsm) != 2) sleep(1)
+        }
+        assertEquals(2, fsm.pendingWaiterCount)
 
-        // move CONNECTING -> CONNECTED
         connectDelegate.success()
 
-        // the Disconnect is processed from the shelf...
-        // CONNECTED -> DISCONNECTING
         assertWithTimeout {
-            while (fsm.fsm.state != State.Disconnecting) {
-                sleep(1)
+            assertSame(connect.get(), waiting.get())
+        }
+    }
+
+    @Test
+    fun `Heap stays flat across 1M cancelled waiters`() {
+        val connectDelegate = TestConnectProxy()
+
+        val fsm = factory(connectProxy = connectDelegate)
+            .newChannelFsm(State.NotConnected)
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        fun cancelWaiters(count: Int) {
+            for (i in 0 until count) {
+                val future = if (i % 2 == 0) fsm.channel else fsm.connect()
+                future.cancel(false)
+
+                if (i % 1000 == 0) {
+                    // let the FSM catch up so the event queue doesn't grow
+                    fsm.fsm.fireEventBlocking(Event.GetChannel().apply { channelFuture.cancel(false) })
+                }
             }
+            fsm.fsm.fireEventBlocking(Event.GetChannel().apply { channelFuture.cancel(false) })
+        }
+
+        cancelWaiters(100_000)
+        val before = usedHeap()
+
+        cancelWaiters(1_000_000)
+        val after = usedHeap()
+
+        // connect() is still waiting, everyone that gave up has been unlinked...
+        assertEquals(1, waiterCount(fsm))
+        assertEquals(1, fsm.pendingWaiterCount)
+
+        // ...and isn't holding on to any memory; 1M waiters would be well over 100MB.
+        assertTrue(after - before < 32 * 1024 * 1024, "heap grew by ${after - before} bytes")
+
+        connectDelegate.success()
+    }
+
+    private fun usedHeap(): Long {
+        val runtime = Runtime.getRuntime()
+        repeat(3) {
+            System.gc()
+            sleep(50)
         }
+        return runtime.totalMemory() - runtime.freeMemory()
     }
 
+    private fun waiterCount(fsm: ChannelFsm): Int =
+        fsm.fsm.getFromContext { ctx -> KEY_CF.get(ctx).waiterCount }
+
     @Test
     fun `External transition via ConnectFailure`() {
         val connectDelegate = TestConnectProxy()
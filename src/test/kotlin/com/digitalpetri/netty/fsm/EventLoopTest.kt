@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import io.netty.channel.DefaultEventLoopGroup
+import io.netty.channel.embedded.EmbeddedChannel
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletableFuture.completedFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+class EventLoopTest {
+
+    private val eventLoopGroup = DefaultEventLoopGroup(2)
+
+    @AfterEach
+    fun shutdown() {
+        eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS)
+    }
+
+    @Test
+    fun `ChannelFsm is bound to an EventLoop from the configured group`() {
+        val factory = factory(eventLoopGroup = eventLoopGroup)
+
+        val fsm = factory.newChannelFsm()
+
+        assertNotNull(fsm.eventLoop)
+        assertTrue(eventLoopGroup.any { it === fsm.eventLoop })
+        assertSame(fsm.eventLoop, fsm.executor)
+
+        assertNull(factory().newChannelFsm().eventLoop)
+    }
+
+    @Test
+    fun `Actions, timers, and completions run on the bound EventLoop`() {
+        val inEventLoop = CopyOnWriteArrayList<Boolean>()
+
+        val connectProxy = object : ConnectProxy {
+            override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                inEventLoop.add(ChannelFsm.getEventLoop(ctx).inEventLoop())
+
+                return completedFuture(EmbeddedChannel())
+            }
+        }
+
+        val fsm = factory(
+            persistent = true,
+            connectProxy = connectProxy,
+            eventLoopGroup = eventLoopGroup
+        ).newChannelFsm()
+
+        val reconnected = CompletableFuture<Unit>()
+        fsm.addTransitionListener { from, to, _ ->
+            inEventLoop.add(fsm.eventLoop.inEventLoop())
+
+            if (from == State.Reconnecting && to == State.Connected) {
+                reconnected.complete(Unit)
+            }
+        }
+
+        fsm.connect().get()
+
+        // Reconnects after the first reconnect delay, scheduled on the EventLoop.
+        fsm.fsm.fireEvent(Event.ChannelInactive.INSTANCE)
+
+        assertWithTimeout(Duration.ofSeconds(5)) {
+            reconnected.get()
+        }
+
+        assertEquals(7, inEventLoop.size)
+        assertTrue(inEventLoop.all { it })
+    }
+
+}
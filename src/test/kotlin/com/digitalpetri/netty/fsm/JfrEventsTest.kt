@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.lang.Thread.sleep
+import java.nio.file.Files
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class JfrEventsTest {
+
+    @Test
+    fun `Transitions, connects, and keep-alives are recorded`() {
+        // The test JDK includes jdk.jfr.
+        assertTrue(JfrEvents.isAvailable())
+
+        val keepAliveLatch = CountDownLatch(1)
+
+        val keepAliveProxy = object : KeepAliveProxy {
+            override fun keepAlive(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                return CompletableFuture.runAsync {
+                    sleep(10)
+                }.whenComplete { _, _ -> keepAliveLatch.countDown() }
+            }
+        }
+
+        val fsm = factory(keepAliveProxy = keepAliveProxy).newChannelFsm()
+
+        val file = Files.createTempFile("channel-fsm", ".jfr")
+
+        Recording().use { recording ->
+            recording.enable("com.digitalpetri.netty.fsm.Transition")
+            recording.enable("com.digitalpetri.netty.fsm.Connect")
+            recording.enable("com.digitalpetri.netty.fsm.KeepAlive")
+            recording.start()
+
+            fsm.connect().get()
+            fsm.fsm.fireEvent(Event.ChannelIdle.INSTANCE)
+            assertTrue(keepAliveLatch.await(1, TimeUnit.SECONDS))
+            fsm.disconnect().get()
+            assertEventualState(fsm, State.NotConnected)
+            sleep(10)
+
+            recording.stop()
+            recording.dump(file)
+        }
+
+        val events = RecordingFile.readAllEvents(file)
+            .filter { it.getLong("fsmId") == fsm.id }
+        Files.delete(file)
+
+        val transitions = events
+            .filter { it.eventType.name == "com.digitalpetri.netty.fsm.Transition" }
+            .map { Triple(it.getString("from"), it.getString("to"), it.getString("event")) }
+
+        assertTrue(transitions.contains(Triple("NotConnected", "Connecting", "Connect")))
+        assertTrue(transitions.contains(Triple("Connecting", "Connected", "ConnectSuccess")))
+        assertTrue(transitions.contains(Triple("Connected", "Connected", "ChannelIdle")))
+        assertTrue(transitions.contains(Triple("Connected", "Disconnecting", "Disconnect")))
+
+        val connects = events.filter { it.eventType.name == "com.digitalpetri.netty.fsm.Connect" }
+        assertEquals(1, connects.size)
+        assertTrue(connects[0].getBoolean("success"))
+
+        val keepAlives = events.filter { it.eventType.name == "com.digitalpetri.netty.fsm.KeepAlive" }
+        assertEquals(1, keepAlives.size)
+        assertTrue(keepAlives[0].getBoolean("success"))
+        assertTrue(keepAlives[0].duration.toMillis() >= 10)
+    }
+
+}
@@ -11,9 +11,11 @@
 package com.digitalpetri.netty.fsm
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
 import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicInteger
 
 
 class NotConnectedActionsTest {
@@ -40,4 +42,39 @@ class NotConnectedActionsTest {
         assertThrows<ExecutionException> { event.channelFuture.get() }
     }
 
+    @Test
+    fun `disconnect() while NOT_CONNECTED completes without firing an event`() {
+        val fsm = factory().newChannelFsm()
+
+        val transitions = AtomicInteger(0)
+        fsm.addTransitionListener { _, _, _ -> transitions.incrementAndGet() }
+
+        val future = fsm.disconnect()
+
+        assertTrue(future.isDone)
+        assertEquals(0, transitions.get())
+    }
+
+    @Test
+    fun `disconnect() right after connect() is not short-circuited`() {
+        val connectDelegate = TestConnectProxy()
+        val fsm = factory(connectProxy = connectDelegate).newChannelFsm()
+
+        val connected = fsm.connect()
+        val disconnected = fsm.disconnect()
+
+        // The Disconnect cancels the connect still in flight.
+        assertWithTimeout { disconnected.get() }
+
+        assertWithTimeout {
+            val ex = assertThrows<ExecutionException> { connected.get() }
+            assertEquals("client disconnected", ex.cause?.message)
+        }
+        assertEventualState(fsm, State.NotConnected)
+
+        // A result arriving after the attempt was cancelled changes nothing.
+        connectDelegate.success()
+        assertEquals(State.NotConnected, fsm.state)
+    }
+
 }
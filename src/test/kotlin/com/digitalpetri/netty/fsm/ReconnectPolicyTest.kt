@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import com.digitalpetri.netty.fsm.ChannelFsm.KEY_RD
+import io.netty.channel.Channel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+
+class ReconnectPolicyTest {
+
+    @Test
+    fun `exponential() doubles up to the max delay`() {
+        val policy = ReconnectPolicy.exponential(100, 1000)
+
+        val delays = (1..7).map { policy.getReconnectDelayMillis(it, 0, null) }
+
+        assertEquals(listOf<Long>(100, 200, 400, 800, 1000, 1000, 1000), delays)
+
+        assertEquals(1000, policy.getReconnectDelayMillis(Int.MAX_VALUE, 0, null))
+    }
+
+    @Test
+    fun `fullJitter() delays are between 0 and the exponential delay`() {
+        val policy = ReconnectPolicy.fullJitter(100, 1000)
+
+        for (attempt in 1..10) {
+            val max = ReconnectPolicy.exponential(100, 1000).getReconnectDelayMillis(attempt, 0, null)
+
+            repeat(100) {
+                val delay = policy.getReconnectDelayMillis(attempt, 0, null)
+                assertTrue(delay in 0..max, "attempt=$attempt, delay=$delay")
+            }
+        }
+    }
+
+    @Test
+    fun `decorrelatedJitter() delays are between base and 3x the previous delay`() {
+        val policy = ReconnectPolicy.decorrelatedJitter(100, 1000)
+
+        var previous = 0L
+        for (attempt in 1..100) {
+            val delay = policy.getReconnectDelayMillis(attempt, previous, null)
+
+            assertTrue(delay >= 100, "delay=$delay")
+            assertTrue(delay <= minOf(1000, maxOf(100, previous) * 3), "previous=$previous, delay=$delay")
+
+            previous = delay
+        }
+    }
+
+    @Test
+    fun `Invalid delays are rejected`() {
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.exponential(-1, 1000) }
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.fullJitter(1000, 100) }
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.decorrelatedJitter(1000, 100) }
+        // A base of 0 would never grow, and reconnect without delay.
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.exponential(0, 1000) }
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.fullJitter(0, 1000) }
+        assertThrows<IllegalArgumentException> { ReconnectPolicy.decorrelatedJitter(0, 1000) }
+    }
+
+    @Test
+    fun `ReconnectPolicy sees the attempt count and failure cause`() {
+        val connectDelegate = TestConnectProxy()
+        val scheduler = TestScheduler()
+
+        val calls = CopyOnWriteArrayList<Triple<Int, Long, Throwable?>>()
+
+        val policy = ReconnectPolicy { attempt, previousDelayMillis, cause ->
+            calls.add(Triple(attempt, previousDelayMillis, cause))
+            attempt * 10L
+        }
+
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>) =
+                    connectDelegate.connect(ctx)
+
+                override fun disconnect(
+                    ctx: FsmContext<State, Event>,
+                    channel: Channel
+                ) = disconnectDelegate(true).disconnect(ctx, channel)
+            })
+            .setReconnectPolicy(policy)
+            .setScheduler(scheduler)
+            .setExecutor(Executors.newSingleThreadExecutor())
+            .build()
+
+        val fsm = ChannelFsmFactory(config).newChannelFsm()
+
+        fsm.connect()
+        connectDelegate.success()
+        assertEventualState(fsm, State.Connected)
+        connectDelegate.reset()
+
+        fsm.fsm.fireEvent(Event.ChannelInactive.INSTANCE)
+        assertEventualState(fsm, State.ReconnectWait)
+
+        val failure = Exception("failed")
+
+        repeat(2) {
+            scheduler.execute()
+            assertEventualState(fsm, State.Reconnecting)
+            fsm.fsm.fireEvent(Event.ConnectFailure(failure))
+            assertEventualState(fsm, State.ReconnectWait)
+        }
+
+        fsm.fsm.getFromContext { ctx -> assertEquals(30L, KEY_RD.get(ctx)) }
+
+        assertEquals(
+            listOf(
+                Triple(1, 0L, null),
+                Triple(2, 10L, failure),
+                Triple(3, 20L, failure)
+            ),
+            calls
+        )
+
+        // A successful reconnect starts counting attempts over.
+        scheduler.execute()
+        assertEventualState(fsm, State.Reconnecting)
+        connectDelegate.success()
+        assertEventualState(fsm, State.Connected)
+
+        fsm.fsm.fireEvent(Event.ChannelInactive.INSTANCE)
+        assertEventualState(fsm, State.ReconnectWait)
+
+        assertEquals(Triple(1, 0L, null), calls.last())
+    }
+
+}
@@ -96,7 +96,7 @@ class ReconnectWaitActionsTest {
 
         fsm.fsm.getFromContext { ctx ->
             val rd = KEY_RD.get(ctx)
-            assertEquals(1L, rd)
+            assertEquals(1000L, rd)
 
             assertNotNull(KEY_RDF.get(ctx))
         }
@@ -123,7 +123,7 @@ class ReconnectWaitActionsTest {
 
         assertEventualState(fsm, State.ReconnectWait)
 
-        for (expectedDelay in listOf<Long>(2, 4, 8, 16, 32, 32, 32)) {
+        for (expectedDelay in listOf<Long>(2000, 4000, 8000, 16000, 32000, 32000, 32000)) {
             scheduler.execute()
             assertEventualState(fsm, State.Reconnecting)
             connectDelegate.failure()
@@ -10,10 +10,12 @@
 
 package com.digitalpetri.netty.fsm
 
+import com.digitalpetri.netty.fsm.ChannelFsm.KEY_RA
 import com.digitalpetri.netty.fsm.ChannelFsm.KEY_RD
 import com.digitalpetri.netty.fsm.ChannelFsm.KEY_RDF
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import java.util.concurrent.ExecutionException
 
 
 class ReconnectingActionsTest {
@@ -90,7 +92,7 @@ class ReconnectingActionsTest {
     }
 
     @Test
-    fun `Disconnect is shelved while RECONNECTING and un-shelved on external transition from RECONNECTING`() {
+    fun `Disconnect while RECONNECTING cancels the reconnect attempt`() {
         val connectDelegate = TestConnectProxy()
 
         val fsm = factory(connectProxy = connectDelegate)
@@ -105,20 +107,23 @@ class ReconnectingActionsTest {
 
         assertEventualState(fsm, State.Reconnecting)
 
-        val disconnect = Event.Disconnect()
-        assertEquals(State.Reconnecting, fsm.fsm.fireEventBlocking(disconnect))
+        val getChannel = Event.GetChannel()
+        fsm.fsm.fireEvent(getChannel)
 
-        connectDelegate.success()
+        val disconnect = Event.Disconnect()
+        fsm.fsm.fireEvent(disconnect)
 
-        // after going back to CONNECTED the shelved Disconnect gets processed...
+        // RECONNECTING -> NOT_CONNECTED without waiting for the reconnect attempt...
 
         assertWithTimeout {
             disconnect.disconnectFuture.get()
+        }
+        assertEquals(State.NotConnected, fsm.state)
+        assertThrows(ExecutionException::class.java) { getChannel.channelFuture.get() }
 
-            assertTrue {
-                disconnect.disconnectFuture.isDone &&
-                    !disconnect.disconnectFuture.isCompletedExceptionally
-            }
+        fsm.fsm.withContext { ctx ->
+            assertNull(KEY_RA.get(ctx))
+            assertNull(KEY_RD.get(ctx))
         }
     }
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import io.netty.util.HashedWheelTimer
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.lang.Thread.sleep
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class SchedulerTest {
+
+    @Test
+    fun `fromTimer() runs scheduled commands`() {
+        val timer = HashedWheelTimer(1, TimeUnit.MILLISECONDS)
+
+        try {
+            val scheduler = Scheduler.fromTimer(timer)
+            val latch = CountDownLatch(1)
+
+            scheduler.schedule({ latch.countDown() }, 10, TimeUnit.MILLISECONDS)
+
+            assertWithTimeout {
+                latch.await()
+            }
+        } finally {
+            timer.stop()
+        }
+    }
+
+    @Test
+    fun `fromTimer() cancelled commands do not run`() {
+        val timer = HashedWheelTimer(1, TimeUnit.MILLISECONDS)
+
+        try {
+            val scheduler = Scheduler.fromTimer(timer)
+            val ran = AtomicBoolean(false)
+
+            val cancellable = scheduler.schedule({ ran.set(true) }, 50, TimeUnit.MILLISECONDS)
+
+            assertTrue(cancellable.cancel())
+            assertFalse(cancellable.cancel())
+
+            sleep(100)
+            assertFalse(ran.get())
+        } finally {
+            timer.stop()
+        }
+    }
+
+    @Test
+    fun `ChannelFsm reconnects using a HashedWheelTimer Scheduler`() {
+        val timer = HashedWheelTimer(10, TimeUnit.MILLISECONDS)
+
+        try {
+            val connectDelegate = TestConnectProxy()
+            val fsm = factory(
+                persistent = true,
+                connectProxy = connectDelegate,
+                scheduler = Scheduler.fromTimer(timer)
+            ).newChannelFsm()
+
+            fsm.connect()
+            connectDelegate.failure()
+            assertEventualState(fsm, State.ReconnectWait)
+            connectDelegate.reset()
+
+            // the first reconnect delay is 1 second
+            assertWithTimeout(Duration.ofSeconds(2)) {
+                while (fsm.fsm.state != State.Reconnecting) {
+                    sleep(1)
+                }
+            }
+        } finally {
+            timer.stop()
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
+class StripedExecutorTest {
+
+    @Test
+    fun `lane() pins the same key to the same lane`() {
+        val executor = StripedExecutor(4)
+
+        try {
+            val key = Any()
+            assertSame(executor.lane(key), executor.lane(key))
+
+            val lanes = (0 until 1000).map { executor.lane(it) }.toSet()
+            assertEquals(4, lanes.size)
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `Work on a lane executes in submission order`() {
+        val executor = StripedExecutor(4)
+
+        try {
+            val lane = executor.lane(Any())
+            val executed = CopyOnWriteArrayList<Int>()
+            val latch = CountDownLatch(1000)
+
+            (0 until 1000).forEach {
+                lane.execute {
+                    executed.add(it)
+                    latch.countDown()
+                }
+            }
+
+            assertWithTimeout { latch.await() }
+            assertEquals((0 until 1000).toList(), executed)
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `ChannelFsm configured with a StripedExecutor runs on its lane`() {
+        val executor = StripedExecutor(4)
+
+        try {
+            val factory = factory(executor = executor)
+
+            val fsms = (0 until 16).map { factory.newChannelFsm() }
+
+            fsms.forEach { fsm ->
+                assertSame(executor.lane(fsm), fsm.executor)
+
+                val channel = fsm.connect().get()
+                assertTrue(channel.isOpen)
+
+                fsm.disconnect().get()
+                assertEquals(State.NotConnected, fsm.fsm.state)
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `setStripedExecutor() selects the shared StripedExecutor`() {
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> =
+                    CompletableFuture()
+
+                override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> =
+                    CompletableFuture()
+            })
+            .setStripedExecutor(true)
+            .build()
+
+        assertSame(StripedExecutor.shared(), config.executor)
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.concurrent.thread
+
+class TransitionHistoryTest {
+
+    @Test
+    fun `ChannelFsm keeps its most recent transitions`() {
+        val config = ChannelFsmConfig.newBuilder()
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                    return connectDelegate(true).connect(ctx)
+                }
+
+                override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                    return disconnectDelegate(true).disconnect(ctx, channel)
+                }
+            })
+            .setTransitionHistorySize(4)
+            .build()
+
+        val fsm = ChannelFsmFactory(config).newChannelFsm()
+
+        fsm.connect().get()
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        val history = fsm.transitionHistory
+        assertEquals(4, history.size)
+        assertEquals(listOf(0L, 1L, 2L, 3L), history.map { it.sequence })
+        assertEquals(State.NotConnected, history[0].from)
+        assertEquals(State.Connecting, history[0].to)
+        assertEquals(Event.Connect::class.java, history[0].eventType)
+        assertEquals(State.NotConnected, history[3].to)
+        assertEquals(Event.DisconnectSuccess::class.java, history[3].eventType)
+
+        fsm.connect().get()
+
+        assertEquals(listOf(2L, 3L, 4L, 5L), fsm.transitionHistory.map { it.sequence })
+    }
+
+    @Test
+    fun `ChannelFsm without a history returns an empty one`() {
+        val fsm = factory().newChannelFsm()
+        fsm.connect().get()
+
+        assertTrue(fsm.transitionHistory.isEmpty())
+    }
+
+    @Test
+    fun `Snapshots taken while recording are contiguous and intact`() {
+        val history = TransitionHistory(64)
+        val done = AtomicBoolean(false)
+
+        val writer = thread {
+            var i = 0
+            while (!done.get()) {
+                val from = State.values()[i % State.values().size]
+                history.record(from, from, Event.ChannelIdle.INSTANCE)
+                i++
+            }
+        }
+
+        repeat(10_000) {
+            val snapshot = history.snapshot()
+            assertTrue(snapshot.size <= 64)
+
+            snapshot.zipWithNext().forEach { (a, b) -> assertEquals(a.sequence + 1, b.sequence) }
+            snapshot.forEach { entry ->
+                assertEquals(State.values()[(entry.sequence % State.values().size).toInt()], entry.from)
+            }
+        }
+
+        done.set(true)
+        writer.join()
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.netty.fsm.TransitionListenerOptions.OverflowPolicy
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.EnumSet
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class TransitionListenerOptionsTest {
+
+    @Test
+    fun `Listeners are only notified of transitions that pass their filters`() {
+        val fsm = factory().newChannelFsm()
+
+        val toConnected = CopyOnWriteArrayList<State>()
+        fsm.addTransitionListener(
+            { from, _, _ -> toConnected.add(from) },
+            TransitionListenerOptions.newBuilder()
+                .setStates(EnumSet.of(State.Connected))
+                .build()
+        )
+
+        val viaDisconnect = CopyOnWriteArrayList<State>()
+        fsm.addTransitionListener(
+            { _, to, _ -> viaDisconnect.add(to) },
+            TransitionListenerOptions.newBuilder()
+                .setEventTypes(setOf(Event.Disconnect::class.java))
+                .build()
+        )
+
+        fsm.connect().get()
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        assertEquals(listOf(State.Connecting), toConnected)
+        assertEquals(listOf(State.Disconnecting), viaDisconnect)
+    }
+
+    @Test
+    fun `Listeners with an Executor are notified in order without blocking the FSM`() {
+        val fsm = factory().newChannelFsm()
+
+        val release = CountDownLatch(1)
+        val notified = CopyOnWriteArrayList<State>()
+        val done = CountDownLatch(4)
+
+        fsm.addTransitionListener(
+            { _, to, _ ->
+                release.await()
+                notified.add(to)
+                done.countDown()
+            },
+            TransitionListenerOptions.newBuilder()
+                .setExecutor(Executors.newSingleThreadExecutor())
+                .build()
+        )
+
+        fsm.connect().get(1, TimeUnit.SECONDS)
+        fsm.disconnect().get(1, TimeUnit.SECONDS)
+        assertEventualState(fsm, State.NotConnected)
+        assertTrue(notified.isEmpty())
+
+        release.countDown()
+        assertTrue(done.await(1, TimeUnit.SECONDS))
+
+        assertEquals(
+            listOf(State.Connecting, State.Connected, State.Disconnecting, State.NotConnected),
+            notified
+        )
+    }
+
+    @Test
+    fun `Overflow policy decides which notifications are dropped`() {
+        for (policy in OverflowPolicy.values()) {
+            val fsm = factory().newChannelFsm()
+
+            val queued = CopyOnWriteArrayList<Runnable>()
+            val notified = CopyOnWriteArrayList<State>()
+
+            fsm.addTransitionListener(
+                { _, to, _ -> notified.add(to) },
+                TransitionListenerOptions.newBuilder()
+                    .setExecutor(Executor { queued.add(it) })
+                    .setQueueCapacity(2)
+                    .setOverflowPolicy(policy)
+                    .build()
+            )
+
+            fsm.connect().get()
+            fsm.disconnect().get()
+            assertEventualState(fsm, State.NotConnected)
+
+            queued.forEach { it.run() }
+
+            when (policy) {
+                OverflowPolicy.DROP_NEWEST ->
+                    assertEquals(listOf(State.Connecting, State.Connected), notified)
+
+                OverflowPolicy.DROP_OLDEST ->
+                    assertEquals(listOf(State.Disconnecting, State.NotConnected), notified)
+            }
+        }
+    }
+
+    @Test
+    fun `A rejected notification doesn't fail the FSM or stop the listener`() {
+        val fsm = factory().newChannelFsm()
+
+        val reject = AtomicBoolean(true)
+        val notified = CopyOnWriteArrayList<State>()
+
+        fsm.addTransitionListener(
+            { _, to, _ -> notified.add(to) },
+            TransitionListenerOptions.newBuilder()
+                .setExecutor(Executor {
+                    if (reject.getAndSet(false)) throw RejectedExecutionException("rejected")
+                    it.run()
+                })
+                .build()
+        )
+
+        fsm.connect().get()
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        assertWithTimeout {
+            while (notified.size < 4) Thread.sleep(1)
+        }
+
+        // The rejected notification stayed queued and was delivered with the next one.
+        assertEquals(
+            listOf(State.Connecting, State.Connected, State.Disconnecting, State.NotConnected),
+            notified
+        )
+    }
+
+    @Test
+    fun `Removed listeners are no longer notified`() {
+        val fsm = factory().newChannelFsm()
+
+        val notified = CopyOnWriteArrayList<State>()
+        val listener = ChannelFsm.TransitionListener { _, to, _ -> notified.add(to) }
+
+        fsm.addTransitionListener(
+            listener,
+            TransitionListenerOptions.newBuilder()
+                .setStates(EnumSet.of(State.Connected, State.NotConnected))
+                .build()
+        )
+        fsm.removeTransitionListener(listener)
+
+        fsm.connect().get()
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        assertTrue(notified.isEmpty())
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.channel.Channel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+
+class TransitionTableTest {
+
+    private val events: List<Event> = listOf(
+        Event.ChannelIdle(),
+        Event.ChannelInactive(),
+        Event.Connect(),
+        Event.ConnectSuccess(null),
+        Event.ConnectFailure(null),
+        Event.ConnectAborted(),
+        Event.Disconnect(),
+        Event.DisconnectSuccess(),
+        Event.GetChannel(),
+        Event.KeepAliveFailure(null),
+        Event.ReconnectDelayElapsed(),
+        object : Event {}
+    )
+
+    @Test
+    fun `INDEXED and PREDICATE tables have the same transitions`() {
+        for (lazy in listOf(false, true)) {
+            for (persistent in listOf(false, true)) {
+                val predicate = table(lazy, persistent, DispatchMode.PREDICATE)
+                val indexed = table(lazy, persistent, DispatchMode.INDEXED)
+
+                for (state in State.values()) {
+                    for (event in events) {
+                        assertEquals(
+                            target(predicate, state, event),
+                            target(indexed, state, event),
+                            "lazy=$lazy, persistent=$persistent, S($state) x E($event)"
+                        )
+
+                        for (to in State.values()) {
+                            assertEquals(
+                                predicate.transitionActions.any { it.matches(state, to, event) },
+                                indexed.transitionActions.any { it.matches(state, to, event) },
+                                "lazy=$lazy, persistent=$persistent, S($state) -> S'($to) via E($event)"
+                            )
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `INDEXED and PREDICATE FSMs make the same transitions`() {
+        fun transitions(dispatchMode: DispatchMode): List<Triple<State, State, String>> {
+            val connectDelegate = TestConnectProxy()
+            val scheduler = TestScheduler()
+
+            val fsm = factory(
+                connectProxy = connectDelegate,
+                scheduler = scheduler,
+                dispatchMode = dispatchMode
+            ).newChannelFsm()
+
+            val transitions = CopyOnWriteArrayList<Triple<State, State, String>>()
+            fsm.addTransitionListener { from, to, via ->
+                transitions.add(Triple(from, to, via.toString()))
+            }
+
+            fsm.connect()
+            connectDelegate.success()
+            assertEventualState(fsm, State.Connected)
+            connectDelegate.reset()
+
+            fsm.fsm.fireEventBlocking(Event.ChannelInactive())
+            fsm.getChannel()
+            scheduler.execute()
+            assertEventualState(fsm, State.Reconnecting)
+            connectDelegate.failure()
+            assertEventualState(fsm, State.ReconnectWait)
+            connectDelegate.reset()
+
+            scheduler.execute()
+            assertEventualState(fsm, State.Reconnecting)
+            connectDelegate.success()
+            assertEventualState(fsm, State.Connected)
+
+            assertWithTimeout {
+                fsm.disconnect().get()
+            }
+
+            return transitions
+        }
+
+        assertEquals(transitions(DispatchMode.PREDICATE), transitions(DispatchMode.INDEXED))
+    }
+
+    private fun table(lazy: Boolean, persistent: Boolean, dispatchMode: DispatchMode): TransitionTable {
+        val config = ChannelFsmConfig.newBuilder()
+            .setLazy(lazy)
+            .setPersistent(persistent)
+            .setDispatchMode(dispatchMode)
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> =
+                    CompletableFuture()
+
+                override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> =
+                    CompletableFuture()
+            })
+            .build()
+
+        return TransitionTable.Builder().apply {
+            ChannelFsmFactory.configureChannelFsm(this, config)
+        }.build(config)
+    }
+
+    private fun target(table: TransitionTable, state: State, event: Event): State {
+        val transition = table.transitionsForInstance().firstOrNull { it.matches(null, state, event) }
+
+        return transition?.target() ?: state
+    }
+
+}
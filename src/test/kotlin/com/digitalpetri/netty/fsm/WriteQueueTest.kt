@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024 Kevin Herron
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package com.digitalpetri.netty.fsm
+
+import com.digitalpetri.fsm.FsmContext
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import io.netty.channel.Channel
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelOutboundHandlerAdapter
+import io.netty.channel.ChannelPromise
+import io.netty.channel.embedded.EmbeddedChannel
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.slf4j.LoggerFactory
+import java.lang.Thread.sleep
+import java.nio.charset.StandardCharsets.UTF_8
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletableFuture.completedFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+class WriteQueueTest {
+
+    @Test
+    fun `write() queues while connecting and flushes in order once connected`() {
+        val channelFuture = CompletableFuture<Channel>()
+        val fsm = newChannelFsm(channelFuture) {}
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        assertTrue(fsm.write("a"))
+        assertTrue(fsm.write("b"))
+        assertTrue(fsm.write("c"))
+        assertEquals(3, fsm.queuedWriteCount)
+
+        val recorder = RecordingHandler()
+        channelFuture.complete(EmbeddedChannel(recorder))
+
+        assertWithTimeout {
+            while (recorder.flushes.get() < 1) {
+                sleep(1)
+            }
+        }
+        assertEquals(listOf("a", "b", "c"), recorder.written)
+        assertEquals(1, recorder.flushes.get())
+        assertEquals(0, fsm.queuedWriteCount)
+
+        assertTrue(fsm.write("d"))
+        assertEquals(listOf("a", "b", "c", "d"), recorder.written)
+        assertEquals(2, recorder.flushes.get())
+    }
+
+    @Test
+    fun `write() drops and releases the newest message when the queue is full`() {
+        val fsm = newChannelFsm(CompletableFuture()) {
+            it.setMaxQueuedWrites(2)
+            it.setWriteOverflowPolicy(WriteOverflowPolicy.DROP_NEWEST)
+        }
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        val buffers = List(3) { buffer(4) }
+
+        assertTrue(fsm.write(buffers[0]))
+        assertTrue(fsm.write(buffers[1]))
+        assertFalse(fsm.write(buffers[2]))
+
+        assertEquals(2, fsm.queuedWriteCount)
+        assertEquals(listOf(1, 1, 0), buffers.map { it.refCnt() })
+    }
+
+    @Test
+    fun `write() drops and releases the oldest messages when over the byte limit`() {
+        val fsm = newChannelFsm(CompletableFuture()) {
+            it.setMaxQueuedWriteBytes(8)
+            it.setWriteOverflowPolicy(WriteOverflowPolicy.DROP_OLDEST)
+        }
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        val buffers = List(3) { buffer(4) }
+        buffers.forEach { assertTrue(fsm.write(it)) }
+
+        assertEquals(2, fsm.queuedWriteCount)
+        assertEquals(listOf(0, 1, 1), buffers.map { it.refCnt() })
+
+        // Too big to ever fit.
+        val tooBig = buffer(9)
+        assertFalse(fsm.write(tooBig))
+        assertEquals(0, tooBig.refCnt())
+    }
+
+    @Test
+    fun `An oversized message doesn't evict the queue under DROP_OLDEST`() {
+        val channelFuture = CompletableFuture<Channel>()
+        val fsm = newChannelFsm(channelFuture) {
+            it.setMaxQueuedWriteBytes(8)
+            it.setWriteOverflowPolicy(WriteOverflowPolicy.DROP_OLDEST)
+        }
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        assertTrue(fsm.write(Unpooled.copiedBuffer("ab", UTF_8)))
+        assertTrue(fsm.write(Unpooled.copiedBuffer("cd", UTF_8)))
+
+        val tooBig = buffer(9)
+        assertFalse(fsm.write(tooBig))
+        assertEquals(0, tooBig.refCnt())
+        assertEquals(2, fsm.queuedWriteCount)
+
+        val recorder = RecordingHandler()
+        channelFuture.complete(EmbeddedChannel(recorder))
+
+        assertWithTimeout {
+            while (recorder.flushes.get() < 1) {
+                sleep(1)
+            }
+        }
+        assertEquals(listOf("ab", "cd"), recorder.written)
+    }
+
+    @Test
+    fun `disconnect() releases queued messages`() {
+        val fsm = newChannelFsm(CompletableFuture()) {}
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        val buf = buffer(4)
+        assertTrue(fsm.write(buf))
+
+        fsm.disconnect().get()
+        assertEventualState(fsm, State.NotConnected)
+
+        assertEquals(0, fsm.queuedWriteCount)
+        assertEquals(0, buf.refCnt())
+    }
+
+    @Test
+    fun `ByteBufs that don't fit are spilled and replayed in order once connected`(@TempDir dir: Path) {
+        val channelFuture = CompletableFuture<Channel>()
+        val metrics = TransitionMetrics()
+        val fsm = newChannelFsm(channelFuture) {
+            it.setMaxQueuedWrites(1)
+            it.setWriteSpillDirectory(dir)
+            it.setWriteSpillSegmentBytes(64)
+            it.setMetrics(metrics)
+        }
+
+        fsm.connect()
+        assertEventualState(fsm, State.Connecting)
+
+        val buffers = listOf("a", "bb", "ccc", "dddd").map { Unpooled.copiedBuffer(it, UTF_8) }
+        buffers.forEach { assertTrue(fsm.write(it)) }
+
+        // The first is queued, the rest are copied to the segment and released.
+        assertEquals(4, fsm.queuedWriteCount)
+        assertEquals(listOf(1, 0, 0, 0), buffers.map { it.refCnt() })
+        assertEquals(9L, metrics.spilledBytes)
+        assertEquals(0L, Files.list(dir).use { it.count() })
+
+        // 43 bytes of the segment are left.
+        val tooBig = buffer(40)
+        assertFalse(fsm.write(tooBig))
+        assertEquals(0, tooBig.refCnt())
+
+        // Can't be spilled, and can't be queued ahead of what was.
+        assertFalse(fsm.write("e"))
+        assertEquals(4, fsm.queuedWriteCount)
+
+        val recorder = RecordingHandler()
+        channelFuture.complete(EmbeddedChannel(recorder))
+
+        assertWithTimeout {
+            while (metrics.replayedBytes < 9L) {
+                sleep(1)
+            }
+        }
+        assertEquals(listOf("a", "bb", "ccc", "dddd"), recorder.written)
+        assertEquals(1, recorder.flushes.get())
+        assertEquals(0, fsm.queuedWriteCount)
+    }
+
+    @Test
+    fun `WriteSpill releases its segment once discarded and replayed`(@TempDir dir: Path) {
+        val spill = WriteSpill(dir, 64, LoggerFactory.getLogger(javaClass))
+
+        assertTrue(spill.append(Unpooled.copiedBuffer("a", UTF_8)))
+        val replayed = spill.replay()
+
+        // Discarded mid-replay; the slices being written stay valid.
+        spill.discard()
+        assertEquals("a", replayed[0].toString(UTF_8))
+        assertEquals(2, replayed[0].refCnt())
+
+        spill.replayed()
+        assertEquals(1, replayed[0].refCnt())
+        replayed[0].release()
+        assertEquals(0, replayed[0].refCnt())
+
+        // The next message spilled maps a new segment.
+        assertTrue(spill.append(Unpooled.copiedBuffer("b", UTF_8)))
+        assertEquals(1, spill.size())
+
+        val next = spill.replay()
+        assertEquals(listOf("b"), next.map { it.toString(UTF_8) })
+        next.forEach { it.release() }
+    }
+
+    private fun newChannelFsm(
+        channelFuture: CompletableFuture<Channel>,
+        configure: (ChannelFsmConfigBuilder) -> Unit
+    ): ChannelFsm {
+
+        val builder = ChannelFsmConfig.newBuilder()
+            .setPersistent(false)
+            .setChannelActions(object : ChannelActions {
+                override fun connect(ctx: FsmContext<State, Event>): CompletableFuture<Channel> {
+                    return channelFuture
+                }
+
+                override fun disconnect(ctx: FsmContext<State, Event>, channel: Channel): CompletableFuture<Void> {
+                    return completedFuture(null)
+                }
+            })
+
+        configure(builder)
+
+        return ChannelFsmFactory(builder.build()).newChannelFsm()
+    }
+
+    private fun buffer(size: Int): ByteBuf = Unpooled.buffer(size).writeZero(size)
+
+    private class RecordingHandler : ChannelOutboundHandlerAdapter() {
+        val written = CopyOnWriteArrayList<Any>()
+        val flushes = AtomicInteger(0)
+
+        override fun write(ctx: ChannelHandlerContext, msg: Any, promise: ChannelPromise) {
+            if (msg is ByteBuf) {
+                written.add(msg.toString(UTF_8))
+                msg.release()
+            } else {
+                written.add(msg)
+            }
+            promise.trySuccess()
+        }
+
+        override fun flush(ctx: ChannelHandlerContext) {
+            flushes.incrementAndGet()
+        }
+    }
+
+}
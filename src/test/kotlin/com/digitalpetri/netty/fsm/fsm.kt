@@ -12,6 +12,7 @@ package com.digitalpetri.netty.fsm
 
 import com.digitalpetri.fsm.FsmContext
 import io.netty.channel.Channel
+import io.netty.channel.EventLoopGroup
 import io.netty.channel.embedded.EmbeddedChannel
 import org.junit.jupiter.api.Assertions.assertTimeoutPreemptively
 import java.lang.Thread.sleep
@@ -47,13 +48,17 @@ fun factory(
             return completedFuture(null)
         }
     },
+    dispatchMode: DispatchMode = DispatchMode.PREDICATE,
     executor: Executor = Executors.newSingleThreadExecutor(),
     scheduler: Scheduler = Scheduler { command, _, unit ->
         // schedule immediately
         val f = Executors.newSingleThreadScheduledExecutor().schedule(command, 0, unit)
 
         Scheduler.Cancellable { f.cancel(false) }
-    }
+    },
+    eventLoopGroup: EventLoopGroup? = null,
+    maxPendingWaiters: Int = 0,
+    connectTimeoutMillis: Long = 0L
 ): ChannelFsmFactory {
 
     val channelActions = object : ChannelActions {
@@ -75,8 +80,12 @@ fun factory(
         setPersistent(persistent)
         setMaxIdleSeconds(maxIdleSeconds)
         setChannelActions(channelActions)
+        setDispatchMode(dispatchMode)
         setExecutor(executor)
         setScheduler(scheduler)
+        setEventLoopGroup(eventLoopGroup)
+        setMaxPendingWaiters(maxPendingWaiters)
+        setConnectTimeoutMillis(connectTimeoutMillis)
     }
 
     return ChannelFsmFactory(config.build())